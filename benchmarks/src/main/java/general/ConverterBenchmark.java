@@ -0,0 +1,66 @@
+package general;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The stages of ConverterBenchmarkMain under JMH: parsing the Baldacci folders and the ESICUP XML files,
+ * ShapeCleaner.clean, cleanSharedVertices, Util.gson.toJson and DXFDocument.toDXFString on the bundled instances.
+ * The inputs are read in sorted order and nothing is random, every invocation does the same work.
+ * <p>
+ * Usage: java -jar benchmarks/target/benchmarks.jar -prof gc [-p instancesFolder=instances] [-p stage=clean]
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(3)
+public class ConverterBenchmark {
+    //relative to the folder the benchmarks are started from
+    @Param("instances")
+    public String instancesFolder;
+
+    @Param({"parse_baldacci", "parse_xml", "clean", "clean_shared_vertices", "gson_to_json", "dxf_to_string"})
+    public String stage;
+
+    private ConverterBenchmarkMain.Stage benchmarkedStage;
+    private PrintStream out;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        //the parsers report their progress on System.out
+        out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        benchmarkedStage = ConverterBenchmarkMain.stages(new File(instancesFolder), System.out).get(stage);
+        if (benchmarkedStage == null) {
+            throw new IllegalArgumentException("Unknown stage " + stage);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(out);
+    }
+
+    @Benchmark
+    public long run() throws Exception {
+        return benchmarkedStage.run();
+    }
+}
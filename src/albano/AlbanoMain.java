@@ -2,16 +2,13 @@ package albano;
 
 import general.Util;
 import json.Instance;
-import org.xml.sax.SAXException;
 
-import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.util.zip.ZipOutputStream;
 
 public class AlbanoMain {
-    public static void main(String[] args) throws IOException, ParserConfigurationException, SAXException {
+    public static void main(String[] args) throws IOException, XMLStreamException {
         File parentFolder = new File(args[0]);
         File outputFolder = new File(parentFolder.getAbsolutePath() + "_converted");
         outputFolder.mkdir();
@@ -19,17 +16,6 @@ public class AlbanoMain {
         File inputFile = new File(parentFolder.getAbsolutePath() + "/albano.xml");
         Instance instance = AlbanoParser.parseInstance(inputFile);
 
-        Util.writeInstance(instance, outputFolder);
-
-        //create zip archive
-        FileOutputStream fos = new FileOutputStream(outputFolder.getAbsolutePath() + ".zip");
-        ZipOutputStream zipOS = new ZipOutputStream(fos);
-
-        for (File file : outputFolder.listFiles()) {
-            Util.zipFile(file, file.getName(), zipOS);
-        }
-
-        zipOS.close();
-        fos.close();
+        Util.writeConvertedInstance(instance, outputFolder);
     }
 }
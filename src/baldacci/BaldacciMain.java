@@ -4,11 +4,11 @@ import general.Util;
 import json.Instance;
 
 import java.io.File;
-import java.io.FileOutputStream;
-import java.util.zip.ZipOutputStream;
 
 public class BaldacciMain {
-    final static boolean CLEAN_SHAPES = true;
+    public final static boolean CLEAN_SHAPES = true;
+    //also merge items that are rotated (by multiples of 90 degrees) or translated copies of each other
+    public final static boolean MERGE_CONGRUENT_ITEMS = false;
 
     public static void main(String[] args) throws Exception {
         File parentFolder = new File(args[0]);
@@ -21,18 +21,7 @@ public class BaldacciMain {
                     Instance instance = BaldacciParser.parseInstance(folder);
                     File convertedFolder = new File(parentFolder.getAbsolutePath() + "_converted/" + folder.getName());
                     convertedFolder.mkdir();
-                    Util.writeInstance(instance, convertedFolder);
-
-                    //create zip archive
-                    FileOutputStream fos = new FileOutputStream(convertedFolder.getAbsolutePath() + ".zip");
-                    ZipOutputStream zipOS = new ZipOutputStream(fos);
-
-                    for (File file : convertedFolder.listFiles()) {
-                        Util.zipFile(file, file.getName(), zipOS);
-                    }
-
-                    zipOS.close();
-                    fos.close();
+                    Util.writeConvertedInstance(instance, convertedFolder);
                 }
             } catch (Exception e) {
                 e.printStackTrace();
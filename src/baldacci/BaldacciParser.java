@@ -7,9 +7,7 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 public class BaldacciParser {
     public static Instance parseInstance(File file) throws IOException {
@@ -28,17 +26,22 @@ public class BaldacciParser {
             }
             int numberOfItems = Integer.parseInt(br.readLine().split(" : ")[1]);
             List<Item> items = new ArrayList<>();
+            //items by (canonical) shape, to merge the demand of duplicates
+            Map<Shape, List<Item>> itemsByShape = new HashMap<>();
             for (int i = 0; i < numberOfItems; i++) {
                 String line = br.readLine();
                 File itemFile = new File(file.getAbsolutePath() + "/" + line.split(" ")[0]);
                 int itemDemand = Integer.parseInt(line.split(" ")[1]);
                 Item item = parseItem(items.size(), itemFile, itemDemand);
-                Optional<Item> optionalEqualShapeItem = items.stream().filter(item1 -> item1.shape.equals(item.shape)).findFirst();
+                Shape key = BaldacciMain.MERGE_CONGRUENT_ITEMS ? item.shape.canonical() : item.shape;
+                List<Item> sameShapeItems = itemsByShape.computeIfAbsent(key, k -> new ArrayList<>());
+                Optional<Item> optionalEqualShapeItem = sameShapeItems.stream().filter(item1 -> isDuplicate(item1, item)).findFirst();
 
                 if (optionalEqualShapeItem.isPresent()) {
                     optionalEqualShapeItem.get().demand += item.demand;
                 } else {
                     items.add(item);
+                    sameShapeItems.add(item);
                 }
             }
             br.close();
@@ -52,6 +55,16 @@ public class BaldacciParser {
 
     }
 
+    //item1 and item2 are known to have the same canonical shape if MERGE_CONGRUENT_ITEMS is set, else the same shape
+    private static boolean isDuplicate(Item item1, Item item2) {
+        if (item1.shape.equals(item2.shape)) {
+            return true;
+        }
+        //a rotated or translated copy only counts when there are no quality zones that would have to be transformed too
+        return BaldacciMain.MERGE_CONGRUENT_ITEMS && item1.zones.isEmpty() && item2.zones.isEmpty()
+                && Objects.equals(item1.minQuality, item2.minQuality);
+    }
+
     private static Item parseItem(Integer id, File file, int demand) throws IOException {
         System.out.println("Parsing item " + file.getName());
         try {
@@ -62,13 +75,14 @@ public class BaldacciParser {
             br.readLine();
 
             int numberOfVertices = Integer.parseInt(br.readLine().split(" ")[3]);
-            ArrayList<Point> points = new ArrayList<>();
+            Ring points = new Ring(numberOfVertices + 1);
             for (int i = 0; i < numberOfVertices; i++) {
                 String[] coords = br.readLine().split(" ");
                 int x = Integer.parseInt(coords[0]);
                 int y = Integer.parseInt(coords[1]);
-                points.add(new Point(x, y));
+                points.add(x, y);
             }
+            Shape shape = new Shape(points);
             int numberOfDefects = Integer.parseInt(br.readLine().split(" ")[3]);
             Integer quality = null;
             ArrayList<Zone> zones = new ArrayList<>();
@@ -82,15 +96,15 @@ public class BaldacciParser {
                     quality = defectQuality;
                 } else {
                     int numberOfDefectVertices = Integer.parseInt(geometryOrNVerticesLine.split(" ")[3]);
-                    ArrayList<Point> defectPoints = new ArrayList<>();
+                    Ring defectPoints = new Ring(numberOfDefectVertices + 1);
                     for (int j = 0; j < numberOfDefectVertices; j++) {
                         String[] coords = br.readLine().split(" ");
                         int x = Integer.parseInt(coords[0]);
                         int y = Integer.parseInt(coords[1]);
-                        defectPoints.add(new Point(x, y));
+                        defectPoints.add(x, y);
                     }
                     defectShape = new Shape(defectPoints);
-                    if (defectShape.equals(new Shape(points))) {
+                    if (defectShape.equals(shape)) {
                         //Quality zone matches the entire shape
                         if (quality == null || defectQuality < quality) {
                             System.out.println("Quality zone matches the entire shape");
@@ -106,7 +120,6 @@ public class BaldacciParser {
             br.close();
             fr.close();
 
-            Shape shape = new Shape(points);
             if (BaldacciMain.CLEAN_SHAPES) {
                 ShapeCleaner cleaner = new ShapeCleaner();
                 shape = cleaner.clean(shape, file.getName());
@@ -114,7 +127,7 @@ public class BaldacciParser {
                 for (Zone zone : zones) {
                     String name = "zone_" + i + "_q" + zone.quality;
                     zone.shape = cleaner.clean(zone.shape, name);
-                    zone.shape.outer_points = cleaner.cleanSharedVertices(zone.shape.outer_points, shape.outer_points, name);
+                    zone.shape.outer_points = Ring.of(cleaner.cleanSharedVertices(zone.shape.outer_points.toPointList(), shape.outer_points.toPointList(), name));
                     i++;
                 }
             }
@@ -136,13 +149,13 @@ public class BaldacciParser {
             br.readLine();
 
             int numberOfVertices = Integer.parseInt(br.readLine().split(" ")[3]);
-            ArrayList<Point> outer_points = new ArrayList<>();
-            ArrayList<ArrayList<Point>> inner_points = new ArrayList<>();
+            Ring outer_points = new Ring(numberOfVertices + 1);
+            ArrayList<Ring> inner_points = new ArrayList<>();
             for (int i = 0; i < numberOfVertices; i++) {
                 String[] coords = br.readLine().split(" ");
                 int x = Integer.parseInt(coords[0]);
                 int y = Integer.parseInt(coords[1]);
-                outer_points.add(new Point(x, y));
+                outer_points.add(x, y);
             }
             int numberOfDefects = Integer.parseInt(br.readLine().split(" ")[3]);
             ArrayList<Zone> zones = new ArrayList<>();
@@ -150,12 +163,12 @@ public class BaldacciParser {
                 br.readLine();
                 int defectType = Integer.parseInt(br.readLine().split(" ")[2]);
                 int numberOfDefectVertices = Integer.parseInt(br.readLine().split(" ")[3]);
-                ArrayList<Point> defectPoints = new ArrayList<>();
+                Ring defectPoints = new Ring(numberOfDefectVertices + 1);
                 for (int j = 0; j < numberOfDefectVertices; j++) {
                     String[] coords = br.readLine().split(" ");
                     int x = Integer.parseInt(coords[0]);
                     int y = Integer.parseInt(coords[1]);
-                    defectPoints.add(new Point(x, y));
+                    defectPoints.add(x, y);
                 }
                 if (defectType == 0) {
                     //Hole in the bin
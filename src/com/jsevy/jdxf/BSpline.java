@@ -27,19 +27,33 @@ package com.jsevy.jdxf;
 
 
 import java.awt.*;
-import java.util.Vector;
+import java.util.ArrayList;
+import java.util.List;
 
 
 /**
  * Class to represent a B-spline (non-rational and with evenly spaced knots).
+ * A B-spline keeps scratch space for flattening its curve, so an instance shouldn't be used by several threads at once.
  *
  * @author jsevy
  */
 public class BSpline {
-    private Vector<SplineControlPoint> controlPoints;
-    private Vector<RealPoint> expandedPoints;
+    private List<SplineControlPoint> controlPoints;
+    private List<RealPoint> expandedPoints;
     private BasisFunction basisFunction;
 
+    // limits on the subdivision of a knot interval (to about a millionth of it), so that a tolerance of 0 or NaN
+    // still terminates
+    private static final int MAX_HALVINGS = 20;
+    private static final int MAX_THIRDINGS = 13;
+
+    // scratch space of evaluate and subdivide, allocated on first use and reused after that
+    private double[] deBoor;
+    private double[] evaluated = new double[3];
+    private double[] stack;
+    private int[] stackDepth;
+    private CurvePoints curvePoints;
+
 
     /**
      * Create e new B-spline of the specified degree using the supplied control points
@@ -47,7 +61,7 @@ public class BSpline {
      * @param degree        Degree of the spline polynomial pieces
      * @param controlPoints The set of control points used to define the spline
      */
-    public BSpline(int degree, Vector<SplineControlPoint> controlPoints) {
+    public BSpline(int degree, List<SplineControlPoint> controlPoints) {
         this.basisFunction = new BSplineBasisFunction(degree + 1 /*support*/);
         this.controlPoints = controlPoints;
         createExpandedPointVector();
@@ -71,7 +85,7 @@ public class BSpline {
      */
     public BSpline(int degree, double[] controlPoints, int[] multiplicities, boolean throughEndpoints) {
         this.basisFunction = new BSplineBasisFunction(degree + 1 /*support*/);
-        this.controlPoints = new Vector<SplineControlPoint>();
+        this.controlPoints = new ArrayList<SplineControlPoint>();
 
         // copy the control point and weight info into our control point vector
         for (int i = 0; i < multiplicities.length; i++) {
@@ -82,8 +96,8 @@ public class BSpline {
         // if pass through endpoints, set multiplicities of first and last control points to support
         if (throughEndpoints) {
             int support = basisFunction.getSupport();
-            this.controlPoints.elementAt(0).multiplicity = support;
-            this.controlPoints.elementAt(this.controlPoints.size() - 1).multiplicity = support;
+            this.controlPoints.get(0).multiplicity = support;
+            this.controlPoints.get(this.controlPoints.size() - 1).multiplicity = support;
         }
 
         createExpandedPointVector();
@@ -125,14 +139,13 @@ public class BSpline {
      * Draw the spline on the supplied Graphics as a series of line segments of maximum length tolerance.
      *
      * @param graphics  The Graphics onto which the spline should be drawn
-     * @param paint     The Paint to use in drawing (determines line width, color, etc.)
      * @param tolerance The maximum length of each of the line segments used to approximate the smooth curve
      */
     private void drawSpline(Graphics graphics, double tolerance) {
-
-        Vector<RealPoint> points = this.getCurvePoints(tolerance);
+        CurvePoints points = pointsBuffer();
+        subdivide(tolerance, true, points);
         for (int i = 0; i < points.size() - 1; i++) {
-            graphics.drawLine((int) points.elementAt(i).x, (int) points.elementAt(i).y, (int) points.elementAt(i + 1).x, (int) points.elementAt(i + 1).y);
+            graphics.drawLine((int) points.getX(i), (int) points.getY(i), (int) points.getX(i + 1), (int) points.getY(i + 1));
         }
     }
 
@@ -140,81 +153,211 @@ public class BSpline {
     /**
      * Get a set of points on the spline curve, where the maximum distance between two adjacent points is given by tolerance.
      *
-     * @param tolerance The maximum distance between any two adjacent points in the return vector
-     * @return A vector containing a set of points which lie on the spline curve
+     * @param tolerance The maximum distance between any two adjacent points in the returned list
+     * @return A list containing a set of points which lie on the spline curve
      */
-    public Vector<RealPoint> getCurvePoints(double tolerance) {
-        double tStart, tEnd;
-        Vector<RealPoint> pointsVector = new Vector<RealPoint>();
-
-        // draw entire curve
-        if (controlPoints.size() > 0) {
-            //SplineControlPoint controlPoint = controlPoints.elementAt(0);
-            //tStart = controlPoint.expandedIndex;
-            tStart = basisFunction.getSupport();
-
-            //controlPoint = controlPoints.elementAt(controlPoints.size() - 1);
-            //tEnd = controlPoint.expandedIndex + basisFunction.getSupport();
-            tEnd = expandedPoints.size() - 1;
-
-            for (int i = (int) Math.round(tStart); i < (int) Math.round(tEnd); i++) {
-                pointsVector.addAll(drawCurve(i, i + 1, tolerance));
-            }
-        }
+    public List<RealPoint> getCurvePoints(double tolerance) {
+        CurvePoints points = pointsBuffer();
+        subdivide(tolerance, true, points);
 
+        List<RealPoint> pointsVector = new ArrayList<RealPoint>(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            pointsVector.add(new RealPoint(points.getX(i), points.getY(i), points.getZ(i)));
+        }
         return pointsVector;
-
     }
 
 
-    private RealPoint computePoint(double t) {
-        int i = (int) Math.round(Math.floor(t));
-        RealPoint curvePoint = new RealPoint(0, 0, 0);
-        int support = basisFunction.getSupport();
-
-        for (int j = 0; j < support; j++) {
-            RealPoint controlPoint = expandedPoints.elementAt(i - j);
+    /**
+     * Append to points a polyline approximating the spline curve, such that the curve deviates from each line segment
+     * by no more than about flatness. Unlike getCurvePoints, straight parts of the curve get long segments and
+     * tight bends get short ones, and no object is created per point; pass the same CurvePoints (after clear())
+     * to flatten several curves without further allocation.
+     *
+     * @param flatness The maximum distance between the curve and the polyline, must be positive
+     * @param points   The buffer the points on the curve are appended to
+     */
+    public void flatten(double flatness, CurvePoints points) {
+        if (!(flatness > 0)) {
+            throw new IllegalArgumentException("Flatness must be positive: " + flatness);
+        }
+        subdivide(flatness, false, points);
+    }
 
-            double basisFn = basisFunction.value(t - (i - j));
 
-            curvePoint.x += controlPoint.x * basisFn;
-            curvePoint.y += controlPoint.y * basisFn;
-            curvePoint.z += controlPoint.z * basisFn;
+    /**
+     * Subdivide each knot interval of the curve until the pieces are short enough or flat enough, appending the ends
+     * of the pieces to points. With chordLength true, a piece is done when the distance between its ends is at most
+     * tolerance, and pieces are halved as in the original recursive version. Otherwise a piece is done when the points
+     * at one and two thirds of it are within tolerance of the line segment joining its ends, and it is split in
+     * three at those points, so that every point evaluated for the test is reused as the end of a smaller piece.
+     * An explicit stack replaces recursion.
+     */
+    private void subdivide(double tolerance, boolean chordLength, CurvePoints points) {
+        if (controlPoints.size() == 0) {
+            return;
+        }
+        int tStart = basisFunction.getSupport();
+        int tEnd = expandedPoints.size() - 1;
+        if (tStart >= tEnd) {
+            return;
+        }
+        allocateScratch();
+        int maxDepth = chordLength ? MAX_HALVINGS : MAX_THIRDINGS;
+
+        evaluate(tStart, tStart);
+        points.add(evaluated[0], evaluated[1], evaluated[2]);
+
+        for (int i = tStart; i < tEnd; i++) {
+            // pieces are {t0, x0, y0, z0, t1, x1, y1, z1}; the start of the interval is the last point appended
+            int last = points.size() - 1;
+            evaluate(i, i + 1);
+            int top = 0;
+            push(top++, i, points.getX(last), points.getY(last), points.getZ(last), i + 1, evaluated[0], evaluated[1], evaluated[2], 0);
+
+            while (top > 0) {
+                top--;
+                int entry = 8 * top;
+                double t0 = stack[entry];
+                double x0 = stack[entry + 1];
+                double y0 = stack[entry + 2];
+                double z0 = stack[entry + 3];
+                double t1 = stack[entry + 4];
+                double x1 = stack[entry + 5];
+                double y1 = stack[entry + 6];
+                double z1 = stack[entry + 7];
+                int depth = stackDepth[top];
+
+                if (depth == maxDepth) {
+                    points.add(x1, y1, z1);
+                } else if (chordLength) {
+                    double dx = x1 - x0;
+                    double dy = y1 - y0;
+                    double dz = z1 - z0;
+                    if (Math.sqrt(dx * dx + dy * dy + dz * dz) <= tolerance) {
+                        points.add(x1, y1, z1);
+                    } else {
+                        double tMid = (t0 + t1) / 2;
+                        evaluate(i, tMid);
+                        double xMid = evaluated[0];
+                        double yMid = evaluated[1];
+                        double zMid = evaluated[2];
+
+                        // pushed last to first, so that the pieces are popped in curve order
+                        push(top++, tMid, xMid, yMid, zMid, t1, x1, y1, z1, depth + 1);
+                        push(top++, t0, x0, y0, z0, tMid, xMid, yMid, zMid, depth + 1);
+                    }
+                } else {
+                    double ta = t0 + (t1 - t0) / 3;
+                    double tb = t0 + 2 * (t1 - t0) / 3;
+                    evaluate(i, ta);
+                    double xa = evaluated[0];
+                    double ya = evaluated[1];
+                    double za = evaluated[2];
+                    evaluate(i, tb);
+                    double xb = evaluated[0];
+                    double yb = evaluated[1];
+                    double zb = evaluated[2];
+
+                    if ((distanceToSegment(xa, ya, za, x0, y0, z0, x1, y1, z1) <= tolerance)
+                            && (distanceToSegment(xb, yb, zb, x0, y0, z0, x1, y1, z1) <= tolerance)) {
+                        points.add(x1, y1, z1);
+                    } else {
+                        push(top++, tb, xb, yb, zb, t1, x1, y1, z1, depth + 1);
+                        push(top++, ta, xa, ya, za, tb, xb, yb, zb, depth + 1);
+                        push(top++, t0, x0, y0, z0, ta, xa, ya, za, depth + 1);
+                    }
+                }
+            }
         }
-
-        return curvePoint;
     }
 
 
-    private Vector<RealPoint> drawCurve(double tStart, double tEnd, double tolerance) {
-        Vector<RealPoint> pointsVector = new Vector<RealPoint>();
-
-        RealPoint startPoint = computePoint(tStart);
-        RealPoint endPoint = computePoint(tEnd);
+    private void push(int top, double t0, double x0, double y0, double z0, double t1, double x1, double y1, double z1, int depth) {
+        int entry = 8 * top;
+        stack[entry] = t0;
+        stack[entry + 1] = x0;
+        stack[entry + 2] = y0;
+        stack[entry + 3] = z0;
+        stack[entry + 4] = t1;
+        stack[entry + 5] = x1;
+        stack[entry + 6] = y1;
+        stack[entry + 7] = z1;
+        stackDepth[top] = depth;
+    }
 
-        pointsVector.add(startPoint);
 
-        // fill in remainder of pointsVector through recursive draw routine
-        drawCurve(tStart, startPoint, tEnd, endPoint, tolerance, pointsVector);
+    // the points buffer of drawSpline and getCurvePoints, cleared
+    private CurvePoints pointsBuffer() {
+        if (curvePoints == null) {
+            curvePoints = new CurvePoints();
+        }
+        curvePoints.clear();
+        return curvePoints;
+    }
 
-        return pointsVector;
 
+    private void allocateScratch() {
+        int support = basisFunction.getSupport();
+        if (deBoor == null || deBoor.length < 3 * support) {
+            deBoor = new double[3 * support];
+        }
+        if (stack == null) {
+            // a piece popped is replaced by two or three, so the stack holds at most 2 pieces per level plus one
+            int capacity = 2 * Math.max(MAX_HALVINGS, MAX_THIRDINGS) + 1;
+            stack = new double[8 * capacity];
+            stackDepth = new int[capacity];
+        }
     }
 
 
-    private void drawCurve(double tStart, RealPoint startPoint, double tEnd, RealPoint endPoint, double tolerance, Vector<RealPoint> pointsVector) {
-        // recursive draw routine
-        //System.out.println("drawCurve entered: " + tStart + ", "  + tEnd);
+    /**
+     * Evaluate the curve at t, using the control points of the knot interval [i, i + 1] (t is expected to lie in
+     * that interval; the interval is given explicitly so that its end point is evaluated with its own control points).
+     * Uses de Boor's algorithm on the uniform knots; the result is left in evaluated.
+     */
+    private void evaluate(int i, double t) {
+        int degree = basisFunction.getSupport() - 1;
+
+        // the control points that affect the interval are expandedPoints[i - degree .. i]
+        for (int r = 0; r <= degree; r++) {
+            RealPoint controlPoint = expandedPoints.get(i - degree + r);
+            deBoor[3 * r] = controlPoint.x;
+            deBoor[3 * r + 1] = controlPoint.y;
+            deBoor[3 * r + 2] = controlPoint.z;
+        }
+        for (int k = 1; k <= degree; k++) {
+            for (int r = degree; r >= k; r--) {
+                // the knots are the integers, so the knot span of each blend is degree + 1 - k
+                double alpha = (t - (i - degree + r)) / (degree + 1 - k);
+                deBoor[3 * r] = (1 - alpha) * deBoor[3 * (r - 1)] + alpha * deBoor[3 * r];
+                deBoor[3 * r + 1] = (1 - alpha) * deBoor[3 * (r - 1) + 1] + alpha * deBoor[3 * r + 1];
+                deBoor[3 * r + 2] = (1 - alpha) * deBoor[3 * (r - 1) + 2] + alpha * deBoor[3 * r + 2];
+            }
+        }
+        evaluated[0] = deBoor[3 * degree];
+        evaluated[1] = deBoor[3 * degree + 1];
+        evaluated[2] = deBoor[3 * degree + 2];
+    }
 
-        if (RealPoint.magnitude(RealPoint.difference(startPoint, endPoint)) <= tolerance) {
-            //System.out.println("  added point: " + endPoint.x + ", "  + endPoint.y + ", " + endPoint.z);
-            pointsVector.add(endPoint);
-        } else {
-            double tMid = (tStart + tEnd) / 2;
-            RealPoint midPoint = computePoint(tMid);
-            drawCurve(tStart, startPoint, tMid, midPoint, tolerance, pointsVector);
-            drawCurve(tMid, midPoint, tEnd, endPoint, tolerance, pointsVector);
+
+    /**
+     * Distance from point (x, y, z) to the line segment from (x0, y0, z0) to (x1, y1, z1)
+     */
+    private static double distanceToSegment(double x, double y, double z, double x0, double y0, double z0, double x1, double y1, double z1) {
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        double dz = z1 - z0;
+        double lengthSquared = dx * dx + dy * dy + dz * dz;
+        double s = 0;
+        if (lengthSquared > 0) {
+            s = ((x - x0) * dx + (y - y0) * dy + (z - z0) * dz) / lengthSquared;
+            s = Math.max(0, Math.min(1, s));
         }
+        double ex = x - (x0 + s * dx);
+        double ey = y - (y0 + s * dy);
+        double ez = z - (z0 + s * dz);
+        return Math.sqrt(ex * ex + ey * ey + ez * ez);
     }
 
 
@@ -225,13 +368,13 @@ public class BSpline {
         int support = basisFunction.getSupport();
         int index = -support + 1;
 
-        expandedPoints = new Vector<RealPoint>();
+        expandedPoints = new ArrayList<RealPoint>();
 
         if (controlPoints.size() == 0)
             return;
 
         for (int j = 0; j < controlPoints.size(); j++) {
-            SplineControlPoint controlPoint = controlPoints.elementAt(j);
+            SplineControlPoint controlPoint = controlPoints.get(j);
             controlPoint.expandedIndex = index;
 
             for (int i = 0; i < controlPoint.multiplicity; i++) {
@@ -249,14 +392,14 @@ public class BSpline {
 
         result += "Control points:\n";
         for (int i = 0; i < controlPoints.size(); i++) {
-            SplineControlPoint controlPoint = controlPoints.elementAt(i);
+            SplineControlPoint controlPoint = controlPoints.get(i);
 
             result += "x = " + controlPoint.x + ", y = " + controlPoint.y + ", z = " + controlPoint.z + ", weight = " + controlPoint.multiplicity + ", expanded index = " + controlPoint.expandedIndex + "\n";
         }
 
         result += "Expanded points:\n";
         for (int i = 0; i < expandedPoints.size(); i++) {
-            RealPoint point = expandedPoints.elementAt(i);
+            RealPoint point = expandedPoints.get(i);
 
             result += "x = " + point.x + ", y = " + point.y + ", z = " + point.z + "\n";
         }
@@ -0,0 +1,103 @@
+/*
+ * JDXF Library
+ *
+ *   Copyright (C) 2018, Jonathan Sevy <jsevy@jsevy.com>
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ *
+ */
+
+package com.jsevy.jdxf;
+
+
+/**
+ * Growable sequence of 3-dimensional points, with the coordinates packed in a single array {x0, y0, z0, x1, ...}
+ * instead of one RealPoint object per point. Used to collect the points of a flattened curve; clear() allows the
+ * same buffer to be reused for the next curve.
+ *
+ * @author jsevy
+ */
+public class CurvePoints {
+
+    private double[] coordinates;
+    private int size;
+
+
+    public CurvePoints() {
+        this(64);
+    }
+
+
+    public CurvePoints(int capacity) {
+        coordinates = new double[3 * Math.max(capacity, 1)];
+        size = 0;
+    }
+
+
+    /**
+     * Remove all points, keeping the allocated space.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+
+    public void add(double x, double y, double z) {
+        if (3 * size == coordinates.length) {
+            double[] larger = new double[2 * coordinates.length];
+            System.arraycopy(coordinates, 0, larger, 0, 3 * size);
+            coordinates = larger;
+        }
+        coordinates[3 * size] = x;
+        coordinates[3 * size + 1] = y;
+        coordinates[3 * size + 2] = z;
+        size++;
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+
+    public double getX(int i) {
+        return coordinates[3 * i];
+    }
+
+
+    public double getY(int i) {
+        return coordinates[3 * i + 1];
+    }
+
+
+    public double getZ(int i) {
+        return coordinates[3 * i + 2];
+    }
+
+
+    /**
+     * The backing array of packed coordinates; only the first 3 * size() entries are valid.
+     *
+     * @return The packed coordinates {x0, y0, z0, x1, y1, z1, ...}
+     */
+    public double[] getCoordinates() {
+        return coordinates;
+    }
+
+}
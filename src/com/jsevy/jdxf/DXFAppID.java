@@ -38,9 +38,12 @@ public class DXFAppID extends DXFTableRecord {
     /**
      * Create an APPID table record object with specified name.
      *
-     * @param name name of table record
+     * @param name            name of table record
+     * @param handleAllocator Handle allocator of the owning document
      */
-    public DXFAppID(String name) {
+    public DXFAppID(String name, DXFHandleAllocator handleAllocator) {
+        super(handleAllocator);
+
         this.name = name;
     }
 
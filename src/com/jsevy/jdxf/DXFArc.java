@@ -36,7 +36,8 @@ import java.awt.*;
 public class DXFArc extends DXFEntity {
     protected RealPoint center;
     protected double radius;
-    protected Color color;
+    // index in the DXF color table, resolved once when the entity is created
+    protected int colorIndex;
     protected double linewidth;
     protected DXFLinetype linetype;
     private double startAngleRadians;
@@ -56,14 +57,14 @@ public class DXFArc extends DXFEntity {
      */
     public DXFArc(RealPoint center, double radius, double startAngleRadians, double endAngleRadians, boolean isCounterclockwise, DXFGraphics graphics) {
         // assign the layer to DXFEntity
-        super(graphics.getLayer());
+        super(graphics.getLayer(), graphics.getHandleAllocator());
 
         this.startAngleRadians = startAngleRadians;
         this.endAngleRadians = endAngleRadians;
         this.isCounterclockwise = isCounterclockwise;
         this.center = new RealPoint(center);
         this.radius = radius;
-        this.color = graphics.getColor();
+        this.colorIndex = DXFColor.getClosestDXFColor(graphics.getColor().getRGB());
         this.linewidth = graphics.getLineWidth();
         this.linetype = graphics.addLinetype();
 
@@ -105,7 +106,7 @@ public class DXFArc extends DXFEntity {
         result.append("370\n" + getDXFLineWeight(linewidth) + "\n");
 
         // add color number
-        result.append("62\n" + DXFColor.getClosestDXFColor(color.getRGB()) + "\n");
+        result.append("62\n" + colorIndex + "\n");
 
         return result.toString();
     }
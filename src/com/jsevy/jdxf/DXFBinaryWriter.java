@@ -0,0 +1,318 @@
+/*
+ * JDXF Library
+ *
+ *   Copyright (C) 2018, Jonathan Sevy <jsevy@jsevy.com>
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ *
+ */
+
+package com.jsevy.jdxf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+
+/**
+ * Writer for the binary form of DXF. A binary DXF file starts with the sentinel "AutoCAD Binary DXF" and holds the
+ * same groups as the text form, but each group code is a 2-byte little-endian integer and each value is stored in
+ * the type implied by its group code: IEEE doubles, 1, 2, 4 or 8 byte little-endian integers, or null-terminated
+ * strings. A coordinate always takes 8 bytes, where the text takes from 4 to over 20 characters, and writing and
+ * reading it needs no number formatting or parsing.
+ * <p>
+ * Objects write themselves through DXFObject.writeBinary; objects without their own implementation fall back to
+ * writeGroups(toDXFString()), which converts text groups to binary ones. Strings are encoded with the platform
+ * default charset, like the text written by DXFDocument.writeTo(OutputStream). The output is buffered; call
+ * flush() when done.
+ *
+ * @author jsevy
+ */
+public class DXFBinaryWriter {
+
+    /**
+     * The 22 bytes every binary DXF file starts with.
+     */
+    public static final byte[] SENTINEL = {'A', 'u', 't', 'o', 'C', 'A', 'D', ' ', 'B', 'i', 'n', 'a', 'r', 'y', ' ',
+            'D', 'X', 'F', '\r', '\n', 0x1a, 0};
+
+
+    /**
+     * Type of the value of a group in binary DXF, as implied by the group code.
+     */
+    public enum ValueType {
+        STRING, DOUBLE, INT16, INT32, INT64, BOOLEAN, BINARY
+    }
+
+
+    private final OutputStream out;
+    private final Charset charset = Charset.defaultCharset();
+    private byte[] buffer = new byte[1 << 16];
+    private int position = 0;
+
+
+    /**
+     * Create a writer for the supplied stream; nothing is written until the first group (or the sentinel).
+     *
+     * @param out The stream to write the binary DXF to
+     */
+    public DXFBinaryWriter(OutputStream out) {
+        this.out = out;
+    }
+
+
+    /**
+     * Get the type of the value of a group, from the ranges of group codes in the DXF reference.
+     *
+     * @param code The group code
+     * @return The type its value is stored as in binary DXF
+     */
+    public static ValueType valueType(int code) {
+        if ((code >= 10 && code <= 59) || (code >= 110 && code <= 149) || (code >= 210 && code <= 239)
+                || (code >= 460 && code <= 469) || (code >= 1010 && code <= 1059)) {
+            return ValueType.DOUBLE;
+        }
+        if ((code >= 60 && code <= 79) || (code >= 170 && code <= 179) || (code >= 270 && code <= 289)
+                || (code >= 370 && code <= 389) || (code >= 400 && code <= 409) || (code >= 1060 && code <= 1070)) {
+            return ValueType.INT16;
+        }
+        if ((code >= 90 && code <= 99) || (code >= 420 && code <= 429) || (code >= 440 && code <= 459)
+                || code == 1071) {
+            return ValueType.INT32;
+        }
+        if (code >= 160 && code <= 169) {
+            return ValueType.INT64;
+        }
+        if (code >= 290 && code <= 299) {
+            return ValueType.BOOLEAN;
+        }
+        if ((code >= 310 && code <= 319) || code == 1004) {
+            return ValueType.BINARY;
+        }
+        return ValueType.STRING;
+    }
+
+
+    /**
+     * Write the sentinel that identifies a binary DXF file.
+     */
+    public void writeSentinel() throws IOException {
+        ensureCapacity(SENTINEL.length);
+        System.arraycopy(SENTINEL, 0, buffer, position, SENTINEL.length);
+        position += SENTINEL.length;
+    }
+
+
+    /**
+     * Write a group with a string value.
+     *
+     * @param code  The group code
+     * @param value The value, written null-terminated
+     */
+    public void writeString(int code, String value) throws IOException {
+        writeCode(code);
+        writeChars(value, 0, value.length());
+    }
+
+
+    /**
+     * Write a group with a double value as an IEEE double.
+     *
+     * @param code  The group code, of a double group
+     * @param value The value
+     */
+    public void writeDouble(int code, double value) throws IOException {
+        writeCode(code);
+        writeLong(Double.doubleToRawLongBits(value), 8);
+    }
+
+
+    /**
+     * Write a group with an integer value, using the width implied by the group code.
+     *
+     * @param code  The group code, of an integer or boolean group
+     * @param value The value
+     */
+    public void writeInteger(int code, long value) throws IOException {
+        writeCode(code);
+        switch (valueType(code)) {
+            case INT16:
+                writeLong(value, 2);
+                break;
+            case INT32:
+                writeLong(value, 4);
+                break;
+            case INT64:
+                writeLong(value, 8);
+                break;
+            case BOOLEAN:
+                writeLong(value, 1);
+                break;
+            default:
+                throw new IllegalArgumentException("Group code " + code + " doesn't have an integer value");
+        }
+    }
+
+
+    /**
+     * Write bytes that are already in binary DXF, e.g. previously rendered groups.
+     *
+     * @param bytes Binary DXF groups
+     */
+    void writeBytes(byte[] bytes) throws IOException {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+
+    /**
+     * Write the groups of a DXF text, i.e. alternating lines of group code and value, converting each value to
+     * the type implied by its group code.
+     *
+     * @param text DXF text as produced by toDXFString()
+     */
+    public void writeGroups(String text) throws IOException {
+        int length = text.length();
+        int start = 0;
+        while (start < length) {
+            int codeEnd = lineEnd(text, start);
+            if (codeEnd >= length) {
+                throw new IOException("Group code without a value at the end of the DXF text");
+            }
+            int code = Integer.parseInt(text, trimStart(text, start, codeEnd), trimEnd(text, start, codeEnd), 10);
+            int valueStart = codeEnd + 1;
+            int valueEnd = lineEnd(text, valueStart);
+            int stringEnd = valueEnd > valueStart && text.charAt(valueEnd - 1) == '\r' ? valueEnd - 1 : valueEnd;
+            writeValue(code, text, valueStart, stringEnd);
+            start = valueEnd + 1;
+        }
+    }
+
+
+    /**
+     * Write the buffered bytes to the stream and flush it. The stream isn't closed.
+     */
+    public void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+
+    private void writeValue(int code, String text, int start, int end) throws IOException {
+        ValueType type = valueType(code);
+        if (type == ValueType.STRING) {
+            writeCode(code);
+            writeChars(text, start, end);
+            return;
+        }
+
+        // numbers may be padded with spaces
+        int numberStart = trimStart(text, start, end);
+        int numberEnd = trimEnd(text, start, end);
+        switch (type) {
+            case DOUBLE:
+                writeDouble(code, Double.parseDouble(text.substring(numberStart, numberEnd)));
+                break;
+            case BINARY:
+                int n = (numberEnd - numberStart) / 2;
+                if (n > 255) {
+                    throw new IOException("Binary chunk of group " + code + " longer than 255 bytes");
+                }
+                writeCode(code);
+                ensureCapacity(n + 1);
+                buffer[position++] = (byte) n;
+                for (int i = 0; i < n; i++) {
+                    buffer[position++] = (byte) Integer.parseInt(text, numberStart + 2 * i, numberStart + 2 * i + 2, 16);
+                }
+                break;
+            default:
+                writeInteger(code, Long.parseLong(text, numberStart, numberEnd, 10));
+                break;
+        }
+    }
+
+
+    private void writeCode(int code) throws IOException {
+        writeLong(code, 2);
+    }
+
+
+    // little-endian, the lowest n bytes of value
+    private void writeLong(long value, int n) throws IOException {
+        ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            buffer[position++] = (byte) (value >>> (8 * i));
+        }
+    }
+
+
+    // null-terminated; ASCII is copied as is, anything else goes through the charset
+    private void writeChars(String s, int start, int end) throws IOException {
+        ensureCapacity(end - start + 1);
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                byte[] bytes = s.substring(i, end).getBytes(charset);
+                ensureCapacity(bytes.length + 1);
+                System.arraycopy(bytes, 0, buffer, position, bytes.length);
+                position += bytes.length;
+                break;
+            }
+            buffer[position++] = (byte) c;
+        }
+        buffer[position++] = 0;
+    }
+
+
+    private void ensureCapacity(int n) throws IOException {
+        if (position + n > buffer.length) {
+            out.write(buffer, 0, position);
+            position = 0;
+            if (n > buffer.length) {
+                // only a very long string gets here
+                buffer = new byte[n];
+            }
+        }
+    }
+
+
+    private static int lineEnd(String text, int start) {
+        int end = text.indexOf('\n', start);
+        return end < 0 ? text.length() : end;
+    }
+
+
+    private static int trimStart(String text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+
+    private static int trimEnd(String text, int start, int end) {
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+}
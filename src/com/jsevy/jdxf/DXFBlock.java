@@ -37,11 +37,12 @@ public class DXFBlock extends DXFEntity {
     /**
      * Create a BLOCK table record object with specified name.
      *
-     * @param name name of table record
+     * @param name            name of table record
+     * @param handleAllocator Handle allocator of the owning document
      */
-    public DXFBlock(String name) {
+    public DXFBlock(String name, DXFHandleAllocator handleAllocator) {
         // just assign block end to default layer
-        super(null);
+        super(null, handleAllocator);
 
         this.name = name;
     }
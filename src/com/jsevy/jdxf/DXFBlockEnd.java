@@ -38,11 +38,12 @@ public class DXFBlockEnd extends DXFEntity {
     /**
      * Create a block end table record object for specified block.
      *
-     * @param block Associated block
+     * @param block           Associated block
+     * @param handleAllocator Handle allocator of the owning document
      */
-    public DXFBlockEnd(DXFBlock block) {
+    public DXFBlockEnd(DXFBlock block, DXFHandleAllocator handleAllocator) {
         // just assign block end to default layer (layer 0)
-        super(null);
+        super(null, handleAllocator);
 
         this.block = block;
     }
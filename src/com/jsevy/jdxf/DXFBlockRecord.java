@@ -38,9 +38,12 @@ public class DXFBlockRecord extends DXFTableRecord {
     /**
      * Create a BLOCK_RECORD table record object with specified name.
      *
-     * @param name name of table record
+     * @param name            name of table record
+     * @param handleAllocator Handle allocator of the owning document
      */
-    public DXFBlockRecord(String name) {
+    public DXFBlockRecord(String name, DXFHandleAllocator handleAllocator) {
+        super(handleAllocator);
+
         this.name = name;
     }
 
@@ -36,7 +36,8 @@ import java.awt.*;
 public class DXFCircle extends DXFEntity {
     protected RealPoint center;
     protected double radius;
-    protected Color color;
+    // index in the DXF color table, resolved once when the entity is created
+    protected int colorIndex;
     protected double linewidth;
     protected DXFLinetype linetype;
 
@@ -50,11 +51,11 @@ public class DXFCircle extends DXFEntity {
      */
     public DXFCircle(RealPoint center, double radius, DXFGraphics graphics) {
         // assign the layer to DXFEntity
-        super(graphics.getLayer());
+        super(graphics.getLayer(), graphics.getHandleAllocator());
 
         this.center = new RealPoint(center);
         this.radius = radius;
-        this.color = graphics.getColor();
+        this.colorIndex = DXFColor.getClosestDXFColor(graphics.getColor().getRGB());
         this.linewidth = graphics.getLineWidth();
         this.linetype = graphics.addLinetype();
 
@@ -91,7 +92,7 @@ public class DXFCircle extends DXFEntity {
         result.append("6\n" + linetype.getName() + "\n");
 
         // add color number
-        result.append("62\n" + DXFColor.getClosestDXFColor(color.getRGB()) + "\n");
+        result.append("62\n" + colorIndex + "\n");
 
         return result.toString();
     }
@@ -25,7 +25,7 @@
 
 package com.jsevy.jdxf;
 
-import java.awt.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -300,20 +300,38 @@ public class DXFColor {
                     {0, 0, 0}
             };
 
+    // closest table index by RGB value, filled as colors are looked up; documents only use a handful of colors, the
+    // size limit just keeps arbitrary images from growing it without bound
+    private static final int MAX_CACHED_COLORS = 4096;
+    private static ConcurrentHashMap<Integer, Integer> closestColors = new ConcurrentHashMap<Integer, Integer>();
+
     /**
      * Find the closest match for a given RGB color in the standard DXF color table. The best match is selected on
-     * the basis of minimum distance using R, G and B asaxes.
+     * the basis of minimum distance using R, G and B asaxes. Results are cached, so repeated lookups of the same
+     * color are cheap.
      *
      * @param rgbColor The RGB color for which a match is desired, represented as a standard Java argb color
      *                 (alpha is ignored)
      * @return The standard DXF color table index for the color that is the closest match to that supplied
      */
     public static int getClosestDXFColor(int rgbColor) {
+        Integer rgb = rgbColor & 0xffffff;
+        Integer bestMatch = closestColors.get(rgb);
+        if (bestMatch == null) {
+            bestMatch = findClosestDXFColor(rgb);
+            if (closestColors.size() < MAX_CACHED_COLORS) {
+                closestColors.put(rgb, bestMatch);
+            }
+        }
+        return bestMatch;
+    }
+
+
+    private static int findClosestDXFColor(int rgbColor) {
         // run through the list of colors and return the one that's closest in the sense of RGB distance
-        Color color = new Color(rgbColor);
-        int r1 = color.getRed();
-        int g1 = color.getGreen();
-        int b1 = color.getBlue();
+        int r1 = (rgbColor >> 16) & 0xff;
+        int g1 = (rgbColor >> 8) & 0xff;
+        int b1 = rgbColor & 0xff;
 
         int bestMatch = 0;
         int closestDistance = 3 * 255 * 255;
@@ -340,4 +358,4 @@ public class DXFColor {
     }
 
 
-}
\ No newline at end of file
+}
@@ -25,7 +25,8 @@
 
 package com.jsevy.jdxf;
 
-import java.util.Vector;
+import java.io.IOException;
+import java.util.ArrayList;
 
 
 /**
@@ -33,7 +34,7 @@ import java.util.Vector;
  *
  * @author jsevy
  */
-public abstract class DXFContainer extends Vector<DXFObject> implements DXFObject {
+public abstract class DXFContainer extends ArrayList<DXFObject> implements DXFObject {
     private static final long serialVersionUID = 1L;
 
 
@@ -46,10 +47,28 @@ public abstract class DXFContainer extends Vector<DXFObject> implements DXFObjec
         StringBuilder result = new StringBuilder();
 
         for (int i = 0; i < this.size(); i++) {
-            result.append(this.elementAt(i).toDXFString());
+            result.append(this.get(i).toDXFString());
         }
 
         return result.toString();
     }
 
+    /**
+     * Streaming counterpart of toDXFString; writes each of the contained DXFObjects to the sink in turn.
+     */
+    public void writeTo(Appendable out) throws IOException {
+        for (int i = 0; i < this.size(); i++) {
+            this.get(i).writeTo(out);
+        }
+    }
+
+    /**
+     * Binary counterpart of writeTo; writes each of the contained DXFObjects to the writer in turn.
+     */
+    public void writeBinary(DXFBinaryWriter out) throws IOException {
+        for (int i = 0; i < this.size(); i++) {
+            this.get(i).writeBinary(out);
+        }
+    }
+
 }
\ No newline at end of file
@@ -25,7 +25,7 @@
 
 package com.jsevy.jdxf;
 
-import java.util.Vector;
+import java.util.ArrayList;
 
 
 /**
@@ -33,16 +33,16 @@ import java.util.Vector;
  *
  * @author jsevy
  */
-public abstract class DXFDatabaseContainer extends Vector<DXFDatabaseObject> implements DXFObject {
+public abstract class DXFDatabaseContainer extends ArrayList<DXFDatabaseObject> implements DXFObject {
     private static final long serialVersionUID = 1L;
 
     // define a DXFDatabaseObject so we have a handle; no multiple inheritance in Java...
     private DXFDatabaseObject myDXFDatabaseObject;
 
 
-    public DXFDatabaseContainer() {
+    public DXFDatabaseContainer(DXFHandleAllocator handleAllocator) {
         // get our DXFDatabaseObject member so we have a handle
-        myDXFDatabaseObject = new DXFDatabaseObject();
+        myDXFDatabaseObject = new DXFDatabaseObject(handleAllocator);
     }
 
 
@@ -60,18 +60,18 @@ public abstract class DXFDatabaseContainer extends Vector<DXFDatabaseObject> imp
 
 
     /**
-     * Print out contents of vector; just calls the toDXFString method of each of the
+     * Print out contents of list; just calls the toDXFString method of each of the
      * DXFObjects it contains. Subclasses of this class will generally insert their own text before and
      * after calling this superclass method to encapsulate the strings from the contained DXFObjects.
      *
-     * @return Concatenated DXF strings from each DXF object in Vector
+     * @return Concatenated DXF strings from each DXF object in the list
      */
     protected String contentsToDXFString() {
         StringBuilder result = new StringBuilder();
 
         // print out all of contents
         for (int i = 0; i < this.size(); i++) {
-            result.append(this.elementAt(i).toDXFString());
+            result.append(this.get(i).toDXFString());
         }
 
         return result.toString();
@@ -35,23 +35,16 @@ package com.jsevy.jdxf;
  */
 public class DXFDatabaseObject implements DXFObject {
 
-    private static int handleCount = 1;
-
     protected int handle;
 
-    public DXFDatabaseObject() {
-        // assign handle and increment handle count so will be unique
-        handle = handleCount;
-        handleCount++;
-    }
-
     /**
-     * Return current handle count so can know what ones have been used
+     * Create a database object with the next handle of the owning document.
      *
-     * @return Current handle count
+     * @param handleAllocator Handle allocator of the owning document
      */
-    public static int getHandleCount() {
-        return handleCount;
+    public DXFDatabaseObject(DXFHandleAllocator handleAllocator) {
+        // assign handle from the document's allocator so will be unique within the document
+        handle = handleAllocator.nextHandle();
     }
 
     /**
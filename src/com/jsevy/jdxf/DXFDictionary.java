@@ -25,7 +25,7 @@
 
 package com.jsevy.jdxf;
 
-import java.util.Vector;
+import java.util.ArrayList;
 
 
 /**
@@ -33,7 +33,7 @@ import java.util.Vector;
  *
  * @author jsevy
  */
-public class DXFDictionary extends Vector<DXFDictionary> implements DXFObject {
+public class DXFDictionary extends ArrayList<DXFDictionary> implements DXFObject {
     private static final long serialVersionUID = 1L;
 
     public String name;
@@ -48,14 +48,15 @@ public class DXFDictionary extends Vector<DXFDictionary> implements DXFObject {
      * Create a dictionary object with specified name.
      *
      * @param name        Name of table record
-     * @param ownerHandle Handle of owner of this dictionary object
+     * @param ownerHandle     Handle of owner of this dictionary object
+     * @param handleAllocator Handle allocator of the owning document
      */
-    public DXFDictionary(String name, int ownerHandle) {
+    public DXFDictionary(String name, int ownerHandle, DXFHandleAllocator handleAllocator) {
         this.name = name;
         this.ownerHandle = ownerHandle;
 
         // get our DXFDatabaseObject member so we have a handle
-        myDXFDatabaseObject = new DXFDatabaseObject();
+        myDXFDatabaseObject = new DXFDatabaseObject(handleAllocator);
     }
 
 
@@ -89,13 +90,13 @@ public class DXFDictionary extends Vector<DXFDictionary> implements DXFObject {
 
         // print out list of names and handles of child entries
         for (int i = 0; i < this.size(); i++) {
-            result.append("3\n" + this.elementAt(i).getName() + "\n");
-            result.append("350\n" + Integer.toHexString(this.elementAt(i).getHandle()) + "\n");
+            result.append("3\n" + this.get(i).getName() + "\n");
+            result.append("350\n" + Integer.toHexString(this.get(i).getHandle()) + "\n");
         }
 
         // print out all child dictionaries
         for (int i = 0; i < this.size(); i++) {
-            result.append(this.elementAt(i).toDXFString());
+            result.append(this.get(i).toDXFString());
         }
 
         return result.toString();
@@ -25,6 +25,7 @@
 
 package com.jsevy.jdxf;
 
+import java.io.IOException;
 
 /**
  * Class representing a DimStyle table; need to extend DXFTable because has some extra stuff
@@ -38,10 +39,11 @@ public class DXFDimStyleTable extends DXFTable {
     /**
      * Create a DimStyle table header block
      *
-     * @param name name of table record
+     * @param name            name of table record
+     * @param handleAllocator Handle allocator of the owning document
      */
-    public DXFDimStyleTable(String name) {
-        super(name);
+    public DXFDimStyleTable(String name, DXFHandleAllocator handleAllocator) {
+        super(name, handleAllocator);
     }
 
 
@@ -71,7 +73,7 @@ public class DXFDimStyleTable extends DXFTable {
 
         // print out all of table records
         for (int i = 0; i < this.size(); i++) {
-            result.append(this.elementAt(i).toDXFString());
+            result.append(this.get(i).toDXFString());
         }
 
         result.append("0\nENDTAB\n");
@@ -79,4 +81,20 @@ public class DXFDimStyleTable extends DXFTable {
         return result.toString();
     }
 
+
+    /**
+     * Streaming counterpart of toDXFString; needs to be overridden here too so the extra DimStyle fields
+     * aren't lost when the document is streamed.
+     */
+    public void writeTo(Appendable out) throws IOException {
+        out.append(toDXFString());
+    }
+
+    /**
+     * Binary counterpart of writeTo, likewise converting the text of toDXFString.
+     */
+    public void writeBinary(DXFBinaryWriter out) throws IOException {
+        out.writeGroups(toDXFString());
+    }
+
 }
\ No newline at end of file
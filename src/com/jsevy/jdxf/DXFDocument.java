@@ -26,6 +26,18 @@
 package com.jsevy.jdxf;
 
 import java.awt.*;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Class representing a DXF document, which owns a DXFGraphics on which drawing commands can be made. The document's
@@ -69,13 +81,107 @@ public class DXFDocument {
 
     private String documentComment = "";
 
-    private DXFViewport activeViewport = new DXFViewport("*ACTIVE", 1000);
+    // handles are allocated per document, so need this before any database objects are created
+    private DXFHandleAllocator handleAllocator = new DXFHandleAllocator();
+
+    // used for generating unique linetype names as needed
+    private int linetypeNumber = 0;
+
+    // records of the LTYPE, LAYER and STYLE tables keyed by what their equals methods compare (dash pattern, layer
+    // name, font), so lookups don't scan the tables; when equal records are present, the first one is kept
+    private Map<DXFLinetype, DXFLinetype> linetypes = new HashMap<DXFLinetype, DXFLinetype>();
+    private Map<DXFLayer, DXFLayer> layers = new HashMap<DXFLayer, DXFLayer>();
+    private Map<DXFStyle, DXFStyle> styles = new HashMap<DXFStyle, DXFStyle>();
+
+    private DXFViewport activeViewport = new DXFViewport("*ACTIVE", 1000, handleAllocator);
+    private DXFTable viewportTable;
 
     // keep this available so we can trip handle limit if needed/desired
     private DXFHeaderSegmentAutoCAD acadHeaderSegment;
 
     private DXFGraphics graphics;
 
+    // false to write only the ENTITIES section, see generateAutoCADSections
+    private boolean acadSections = true;
+
+    // end of the block being defined between beginBlock and endBlock, null while entities go to the ENTITIES section
+    private DXFBlockEnd openBlockEnd = null;
+
+    // the sections and tables changed since generateAcadExtras, which have to be rendered rather than written from
+    // the preamble; sections and tables are lists, so they are compared by identity
+    private Set<DXFObject> changedParts = Collections.newSetFromMap(new IdentityHashMap<DXFObject, Boolean>());
+
+
+    /**
+     * The CLASSES section, each table and the BLOCKS and OBJECTS sections of a new document, rendered as text and as
+     * binary DXF once per JVM and number of precision digits. generateAcadExtras creates the same records with the
+     * same handles in every document, so a part that a document didn't change is written from here rather than
+     * rendered again.
+     */
+    private static class Preamble {
+        // indexed by the number of precision digits, 0 to 16
+        private static final AtomicReferenceArray<Preamble> BY_PRECISION = new AtomicReferenceArray<Preamble>(17);
+
+        final String classes;
+        final byte[] classesBinary;
+        final String[] tables;
+        final byte[][] tablesBinary;
+        final String blocks;
+        final byte[] blocksBinary;
+        final String objects;
+        final byte[] objectsBinary;
+
+
+        /**
+         * The preamble rendered at the current number of precision digits
+         */
+        static Preamble get() {
+            int digits = DXFEntity.getPrecisionDigits();
+            Preamble preamble = BY_PRECISION.get(digits);
+            if (preamble == null) {
+                // rendered twice at worst when two threads get here together, both results are the same
+                BY_PRECISION.compareAndSet(digits, null, new Preamble(new DXFDocument()));
+                preamble = BY_PRECISION.get(digits);
+            }
+            return preamble;
+        }
+
+
+        private Preamble(DXFDocument document) {
+            try {
+                classes = document.classes.toDXFString();
+                classesBinary = toBinary(document.classes);
+
+                int tableCount = document.tables.size();
+                tables = new String[tableCount];
+                tablesBinary = new byte[tableCount][];
+                for (int i = 0; i < tableCount; i++) {
+                    DXFTable table = (DXFTable) document.tables.get(i);
+                    tables[i] = table.toDXFString();
+                    tablesBinary[i] = toBinary(table);
+                }
+
+                blocks = document.blocks.toDXFString();
+                blocksBinary = toBinary(document.blocks);
+
+                objects = document.objects.toDXFString();
+                objectsBinary = toBinary(document.objects);
+            } catch (IOException e) {
+                // only written to memory
+                throw new RuntimeException(e);
+            }
+        }
+
+
+        private static byte[] toBinary(DXFObject object) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DXFBinaryWriter writer = new DXFBinaryWriter(bytes);
+            object.writeBinary(writer);
+            writer.flush();
+            return bytes.toByteArray();
+        }
+    }
+
 
     /**
      * Create a new DXFDocument
@@ -112,23 +218,23 @@ public class DXFDocument {
 
         // Tables
         // required tables - sheesh! Many can be empty, but still have to be there. Crappy software!
-        DXFTable viewportTable = new DXFTable("VPORT");
+        viewportTable = new DXFTable("VPORT", handleAllocator);
         tables.add(viewportTable);
-        DXFTable linetypeTable = new DXFTable("LTYPE");
+        DXFTable linetypeTable = new DXFTable("LTYPE", handleAllocator);
         tables.add(linetypeTable);
-        DXFTable layerTable = new DXFTable("LAYER");
+        DXFTable layerTable = new DXFTable("LAYER", handleAllocator);
         tables.add(layerTable);
-        DXFTable styleTable = new DXFTable("STYLE");
+        DXFTable styleTable = new DXFTable("STYLE", handleAllocator);
         tables.add(styleTable);
-        DXFTable viewTable = new DXFTable("VIEW");
+        DXFTable viewTable = new DXFTable("VIEW", handleAllocator);
         tables.add(viewTable);
-        DXFTable ucsTable = new DXFTable("UCS");
+        DXFTable ucsTable = new DXFTable("UCS", handleAllocator);
         tables.add(ucsTable);
-        DXFTable appIDTable = new DXFTable("APPID");
+        DXFTable appIDTable = new DXFTable("APPID", handleAllocator);
         tables.add(appIDTable);
-        DXFTable dimStyleTable = new DXFDimStyleTable("DIMSTYLE");
+        DXFTable dimStyleTable = new DXFDimStyleTable("DIMSTYLE", handleAllocator);
         tables.add(dimStyleTable);
-        DXFTable blockRecordTable = new DXFTable("BLOCK_RECORD");
+        DXFTable blockRecordTable = new DXFTable("BLOCK_RECORD", handleAllocator);
         tables.add(blockRecordTable);
 
         // need an active viewport; this can be set to specific values using setViewport()
@@ -152,43 +258,46 @@ public class DXFDocument {
 
         // layer table requires one layer, used for default when layer not specified for entity; 
         // name must be "0"
-        DXFLayer layer = new DXFLayer("0");
+        DXFLayer layer = new DXFLayer("0", handleAllocator);
         layerTable.add(layer);
 
         // style, view, dimstyle and UCS tables can be empty
 
+        indexRecords(linetypeTable);
+        indexRecords(layerTable);
+
         // appid needs single entry for AutoCAD
-        DXFAppID appID = new DXFAppID("ACAD");
+        DXFAppID appID = new DXFAppID("ACAD", handleAllocator);
         appIDTable.add(appID);
 
         // block record table needs two entries, *Model_Space and *Paper_Space
-        DXFBlockRecord blockRecord = new DXFBlockRecord("*Model_Space");
+        DXFBlockRecord blockRecord = new DXFBlockRecord("*Model_Space", handleAllocator);
         blockRecordTable.add(blockRecord);
-        blockRecord = new DXFBlockRecord("*Paper_Space");
+        blockRecord = new DXFBlockRecord("*Paper_Space", handleAllocator);
         blockRecordTable.add(blockRecord);
 
 
         // Blocks
         // blocks section needs two blocks, *Model_Space and *Paper_Space, with corresponding end-blocks
-        DXFBlock block = new DXFBlock("*Model_Space");
+        DXFBlock block = new DXFBlock("*Model_Space", handleAllocator);
         blocks.add(block);
-        DXFBlockEnd endblock = new DXFBlockEnd(block);
+        DXFBlockEnd endblock = new DXFBlockEnd(block, handleAllocator);
         blocks.add(endblock);
 
-        block = new DXFBlock("*Paper_Space");
+        block = new DXFBlock("*Paper_Space", handleAllocator);
         blocks.add(block);
-        endblock = new DXFBlockEnd(block);
+        endblock = new DXFBlockEnd(block, handleAllocator);
         blocks.add(endblock);
 
 
         // Objects
         // Objects section needs a single base dictionary with one empty entry dictionary, ACAD_GROUP - go figure...
         // Add base dictionary with no name or owner
-        DXFDictionary dictionary = new DXFDictionary("", 0);
+        DXFDictionary dictionary = new DXFDictionary("", 0, handleAllocator);
         objects.add(dictionary);
 
         // add the single child dictionary to the root dictionary
-        DXFDictionary childDictionary = new DXFDictionary("ACAD_GROUP", dictionary.getHandle());
+        DXFDictionary childDictionary = new DXFDictionary("ACAD_GROUP", dictionary.getHandle(), handleAllocator);
         dictionary.add(childDictionary);
 
     }
@@ -274,6 +383,39 @@ public class DXFDocument {
     }
 
 
+    /**
+     * When true, runs of consecutive line segments in the paths passed to DXFGraphics.draw(Shape) (e.g. a Path2D
+     * or an Area) are output as single lightweight polylines, closed when the run spans a whole closed subpath,
+     * rather than as one DXF line per segment. This gives much smaller DXF files for polygonal outlines.
+     * <p>
+     * Default is false; one line will be generated per segment.
+     *
+     * @param usePolylines When true, will generate a DXF lightweight polyline for each run of line segments in a path;
+     *                     when false, will generate a DXF line for each segment
+     */
+    public void generatePolylines(boolean usePolylines) {
+        graphics.usePolylines = usePolylines;
+    }
+
+
+    /**
+     * When true, the DXF output includes the HEADER, CLASSES, TABLES, BLOCKS and OBJECTS sections AutoCAD expects
+     * around the entities. When false, only the ENTITIES section is output, the minimal file layout of DXF R12, which
+     * most CAD programs and DXF libraries read as well; for a drawing of a single polyline this is a fraction of the
+     * size. Entities refer to layers and linetypes by name, so layers other than "0" are then created by the reader.
+     * LWPOLYLINE entities are from R14 though, and AutoCAD itself needs the full output to read them.
+     * Binary DXF and documents with blocks (beginBlock) can't be written without the AutoCAD sections, the size of
+     * binary group codes depends on the version in the header.
+     * <p>
+     * Default is true; all sections will be generated.
+     *
+     * @param useAcadSections When true, will generate all sections; when false, only the ENTITIES section
+     */
+    public void generateAutoCADSections(boolean useAcadSections) {
+        acadSections = useAcadSections;
+    }
+
+
     /**
      * Set the current layer; all subsequent entities will be assigned to this layer.
      *
@@ -284,7 +426,7 @@ public class DXFDocument {
             graphics.setLayer(null);
         } else {
             // create a DXFLayer and add it to the LAYER table in the associated DXF document if it's not already there
-            graphics.setLayer(addLayer(new DXFLayer(layerName)));
+            graphics.setLayer(addLayer(new DXFLayer(layerName, handleAllocator)));
         }
     }
 
@@ -297,6 +439,7 @@ public class DXFDocument {
      */
     public void setViewportScale(double viewportScale) {
         activeViewport.setScale(viewportScale);
+        changed(viewportTable);
     }
 
 
@@ -308,6 +451,7 @@ public class DXFDocument {
      */
     public void setViewportCenter(double centerX, double centerY) {
         activeViewport.setCenter(centerX, centerY);
+        changed(viewportTable);
     }
 
 
@@ -345,6 +489,17 @@ public class DXFDocument {
     }
 
 
+    /**
+     * Get the allocator handing out the database handles for this document; needed when creating
+     * tables and table records to add to the document.
+     *
+     * @return The handle allocator of this document
+     */
+    public DXFHandleAllocator getHandleAllocator() {
+        return this.handleAllocator;
+    }
+
+
     /**
      * Return the DXF text associated with this DXF document. This includes the header,
      * classes, tables, blocks, entities and objects sections, populated with content
@@ -356,16 +511,29 @@ public class DXFDocument {
         StringBuilder result = new StringBuilder();
 
         // first trim the handle limit to the count actually used
-        acadHeaderSegment.setHandleLimit(DXFDatabaseObject.getHandleCount());
+        acadHeaderSegment.setHandleLimit(handleAllocator.getHandleCount());
 
         result.append("999\n" + documentComment + "\n");
 
+        if (!acadSections) {
+            checkNoBlocks();
+            result.append(entities.toDXFString());
+            result.append("0\nEOF\n");
+            return result.toString();
+        }
+
+        // parts that are still as generateAcadExtras created them are the same in every document
+        Preamble preamble = Preamble.get();
         result.append(header.toDXFString());
-        result.append(classes.toDXFString());
-        result.append(tables.toDXFString());
-        result.append(blocks.toDXFString());
+        result.append(isUnchanged(classes) ? preamble.classes : classes.toDXFString());
+        result.append("0\nSECTION\n2\nTABLES\n");
+        for (int i = 0; i < tables.size(); i++) {
+            result.append(isUnchangedTable(preamble, i) ? preamble.tables[i] : tables.get(i).toDXFString());
+        }
+        result.append("0\nENDSEC\n");
+        result.append(isUnchanged(blocks) ? preamble.blocks : blocks.toDXFString());
         result.append(entities.toDXFString());
-        result.append(objects.toDXFString());
+        result.append(isUnchanged(objects) ? preamble.objects : objects.toDXFString());
 
         // end-of-file marker
         result.append("0\nEOF\n");
@@ -375,22 +543,274 @@ public class DXFDocument {
 
 
     /**
-     * Utility method used by the associated DXFGraphics object.
+     * Write the DXF text associated with this DXF document to the supplied sink. The output is identical to
+     * that of toDXFString(), but sections and entities are streamed one at a time so the whole document never
+     * has to be held in memory as a single string. The sink is not flushed or closed.
+     *
+     * @param out The sink to write the DXF text to, e.g. a BufferedWriter
+     * @throws IOException If the sink throws while writing
+     */
+    public void writeTo(Appendable out) throws IOException {
+        // first trim the handle limit to the count actually used
+        acadHeaderSegment.setHandleLimit(handleAllocator.getHandleCount());
+
+        out.append("999\n").append(documentComment).append("\n");
+
+        if (!acadSections) {
+            checkNoBlocks();
+            entities.writeTo(out);
+            out.append("0\nEOF\n");
+            return;
+        }
+
+        Preamble preamble = Preamble.get();
+        header.writeTo(out);
+        if (isUnchanged(classes)) {
+            out.append(preamble.classes);
+        } else {
+            classes.writeTo(out);
+        }
+        out.append("0\nSECTION\n2\nTABLES\n");
+        for (int i = 0; i < tables.size(); i++) {
+            if (isUnchangedTable(preamble, i)) {
+                out.append(preamble.tables[i]);
+            } else {
+                tables.get(i).writeTo(out);
+            }
+        }
+        out.append("0\nENDSEC\n");
+        if (isUnchanged(blocks)) {
+            out.append(preamble.blocks);
+        } else {
+            blocks.writeTo(out);
+        }
+        entities.writeTo(out);
+        if (isUnchanged(objects)) {
+            out.append(preamble.objects);
+        } else {
+            objects.writeTo(out);
+        }
+
+        // end-of-file marker
+        out.append("0\nEOF\n");
+    }
+
+
+    /**
+     * Write the DXF text associated with this DXF document to the supplied stream through a buffered writer,
+     * using the platform default charset like FileWriter does. The stream is flushed but not closed.
+     *
+     * @param out The stream to write the DXF text to
+     * @throws IOException If the stream throws while writing
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out));
+        writeTo(writer);
+        writer.flush();
+    }
+
+
+    /**
+     * Write this DXF document in binary DXF to the supplied writer: the same groups as writeTo, without the
+     * sentinel.
+     *
+     * @param out The writer to write the binary groups to
+     * @throws IOException If the underlying stream throws while writing
+     */
+    public void writeBinary(DXFBinaryWriter out) throws IOException {
+        if (!acadSections) {
+            throw new IllegalStateException("Binary DXF needs the AutoCAD sections");
+        }
+
+        // first trim the handle limit to the count actually used
+        acadHeaderSegment.setHandleLimit(handleAllocator.getHandleCount());
+
+        out.writeString(999, documentComment);
+
+        Preamble preamble = Preamble.get();
+        header.writeBinary(out);
+        if (isUnchanged(classes)) {
+            out.writeBytes(preamble.classesBinary);
+        } else {
+            classes.writeBinary(out);
+        }
+        out.writeString(0, "SECTION");
+        out.writeString(2, "TABLES");
+        for (int i = 0; i < tables.size(); i++) {
+            if (isUnchangedTable(preamble, i)) {
+                out.writeBytes(preamble.tablesBinary[i]);
+            } else {
+                tables.get(i).writeBinary(out);
+            }
+        }
+        out.writeString(0, "ENDSEC");
+        if (isUnchanged(blocks)) {
+            out.writeBytes(preamble.blocksBinary);
+        } else {
+            blocks.writeBinary(out);
+        }
+        entities.writeBinary(out);
+        if (isUnchanged(objects)) {
+            out.writeBytes(preamble.objectsBinary);
+        } else {
+            objects.writeBinary(out);
+        }
+
+        // end-of-file marker
+        out.writeString(0, "EOF");
+    }
+
+
+    /**
+     * Write this DXF document as a binary DXF file to the supplied stream, starting with the sentinel. Binary DXF
+     * is faster to write and read since numbers aren't formatted or parsed; it is smaller than the text when the
+     * coordinates have many digits, but larger for short ones like "950.0". The stream is flushed but not closed.
+     *
+     * @param out The stream to write the binary DXF to
+     * @throws IOException If the stream throws while writing
+     */
+    public void writeBinaryTo(OutputStream out) throws IOException {
+        DXFBinaryWriter writer = new DXFBinaryWriter(out);
+        writer.writeSentinel();
+        writeBinary(writer);
+        writer.flush();
+    }
+
+
+    /**
+     * The minimal output has no BLOCKS section, so it can't hold a drawing with blocks of its own.
+     */
+    private void checkNoBlocks() {
+        if (!isUnchanged(blocks)) {
+            throw new IllegalStateException("A document with blocks needs the AutoCAD sections");
+        }
+    }
+
+
+    /**
+     * Record that a section or table was changed after generateAcadExtras, so it can't be written from the preamble.
+     * Every method that adds to or edits a section or table calls this.
+     *
+     * @param part The section or table changed
+     */
+    private void changed(DXFObject part) {
+        changedParts.add(part);
+    }
+
+
+    /**
+     * Whether a section or table is still as generateAcadExtras created it, so its text is that of the preamble.
+     *
+     * @param part A section or table of this document
+     * @return True if the part wasn't changed
+     */
+    private boolean isUnchanged(DXFObject part) {
+        return !changedParts.contains(part);
+    }
+
+
+    /**
+     * Whether the table at the given index of the TABLES section is one generateAcadExtras created and is unchanged.
+     */
+    private boolean isUnchangedTable(Preamble preamble, int index) {
+        return index < preamble.tables.length && isUnchanged(tables.get(index));
+    }
+
+
+    /**
+     * Utility method used by the associated DXFGraphics object. Linetypes, layers and styles must be in the table
+     * before it is added to be found by later lookups.
      *
      * @param table A DXFTable instance
      */
     public void addTable(DXFTable table) {
         tables.add(table);
+        changed(table);
+        indexRecords(table);
     }
 
 
     /**
-     * Utility method used by the associated DXFGraphics object.
+     * Add the records of a LTYPE, LAYER or STYLE table to the lookup maps, keeping earlier equal records.
+     *
+     * @param table A DXFTable instance
+     */
+    private void indexRecords(DXFTable table) {
+        for (int i = 0; i < table.size(); i++) {
+            DXFDatabaseObject record = table.get(i);
+            if (table.name.equals("LTYPE") && record instanceof DXFLinetype) {
+                linetypes.putIfAbsent((DXFLinetype) record, (DXFLinetype) record);
+            } else if (table.name.equals("LAYER") && record instanceof DXFLayer) {
+                layers.putIfAbsent((DXFLayer) record, (DXFLayer) record);
+            } else if (table.name.equals("STYLE") && record instanceof DXFStyle) {
+                styles.putIfAbsent((DXFStyle) record, (DXFStyle) record);
+            }
+        }
+    }
+
+
+    /**
+     * Start the definition of a named block. Everything drawn on the DXFGraphics until endBlock is called goes into
+     * the block rather than into the drawing; the block can then be placed any number of times with
+     * DXFGraphics.drawBlock. Blocks can't be nested.
+     *
+     * @param name The name of the block, unique in this document
+     */
+    public void beginBlock(String name) {
+        if (openBlockEnd != null) {
+            throw new IllegalStateException("Block " + name + " started before the previous block ended");
+        }
+
+        // every block needs a record in the BLOCK_RECORD table, like *Model_Space and *Paper_Space
+        DXFTable blockRecordTable = null;
+        for (int i = 0; i < tables.size(); i++) {
+            DXFTable table = (DXFTable) tables.get(i);
+            if (table.name.equals("BLOCK_RECORD")) {
+                blockRecordTable = table;
+                break;
+            }
+        }
+
+        if (blockRecordTable == null) {
+            blockRecordTable = new DXFTable("BLOCK_RECORD", handleAllocator);
+            tables.add(blockRecordTable);
+        }
+
+        blockRecordTable.add(new DXFBlockRecord(name, handleAllocator));
+        changed(blockRecordTable);
+
+        DXFBlock block = new DXFBlock(name, handleAllocator);
+        blocks.add(block);
+        changed(blocks);
+        openBlockEnd = new DXFBlockEnd(block, handleAllocator);
+    }
+
+
+    /**
+     * End the definition of the block started with beginBlock; subsequent drawing goes into the drawing again.
+     */
+    public void endBlock() {
+        if (openBlockEnd == null) {
+            throw new IllegalStateException("No block started");
+        }
+
+        blocks.add(openBlockEnd);
+        openBlockEnd = null;
+    }
+
+
+    /**
+     * Utility method used by the associated DXFGraphics object. Adds the entity to the block being defined, if any,
+     * and otherwise to the ENTITIES section.
      *
      * @param entity A DXFEntity instance
      */
     public void addEntity(DXFEntity entity) {
-        entities.add(entity);
+        if (openBlockEnd != null) {
+            blocks.add(entity);
+        } else {
+            entities.add(entity);
+        }
     }
 
 
@@ -400,30 +820,25 @@ public class DXFDocument {
      * @param g The associated graphics instance
      * @return The associated DXFStyle in the style table
      */
-    protected DXFLinetype addLinetype(Graphics2D g) {
+    protected DXFLinetype addLinetype(DXFGraphics g) {
         // create a new unnamed linetype
         DXFLinetype linetype = new DXFLinetype(null, g);
 
         // first see if linetype already represented in linetype table; if so, return that one
-        for (int i = 0; i < tables.size(); i++) {
-            DXFTable table = (DXFTable) tables.elementAt(i);
-            if (table.name.equals("LTYPE")) {
-                // see if we have the linetype in the table
-                int index = table.indexOf(linetype);
-                if (index >= 0) {
-                    return (DXFLinetype) table.elementAt(index);
-                }
-            }
+        DXFLinetype existing = linetypes.get(linetype);
+        if (existing != null) {
+            return existing;
         }
 
 
         // didn't find it; give it a name, and add to one of the LTYPE tables, 
         // adding a table if necessary, and return the linetype
-        linetype.setName(DXFLinetype.getNextName());
+        linetype.setName("Linetype_" + linetypeNumber);
+        linetypeNumber++;
 
         DXFTable linetypeTable = null;
         for (int i = 0; i < tables.size(); i++) {
-            DXFTable table = (DXFTable) tables.elementAt(i);
+            DXFTable table = (DXFTable) tables.get(i);
             if (table.name.equals("LTYPE")) {
                 linetypeTable = table;
                 break;
@@ -431,11 +846,13 @@ public class DXFDocument {
         }
 
         if (linetypeTable == null) {
-            linetypeTable = new DXFTable("LTYPE");
+            linetypeTable = new DXFTable("LTYPE", handleAllocator);
             tables.add(linetypeTable);
         }
 
         linetypeTable.add(linetype);
+        changed(linetypeTable);
+        linetypes.put(linetype, linetype);
 
         return linetype;
     }
@@ -449,22 +866,16 @@ public class DXFDocument {
      */
     protected DXFLayer addLayer(DXFLayer layer) {
         // first see if layer already represented in tables; if so, return it
-        for (int i = 0; i < tables.size(); i++) {
-            DXFTable table = (DXFTable) tables.elementAt(i);
-            if (table.name.equals("LAYER")) {
-                // see if we have the layer in the table
-                int index = table.indexOf(layer);
-                if (index >= 0) {
-                    return (DXFLayer) table.elementAt(index);
-                }
-            }
+        DXFLayer existing = layers.get(layer);
+        if (existing != null) {
+            return existing;
         }
 
 
         // didn't find it; add to one of the LAYER tables, adding one if necessary, and return the style passed in
         DXFTable layerTable = null;
         for (int i = 0; i < tables.size(); i++) {
-            DXFTable table = (DXFTable) tables.elementAt(i);
+            DXFTable table = (DXFTable) tables.get(i);
             if (table.name.equals("LAYER")) {
                 layerTable = table;
                 break;
@@ -472,11 +883,13 @@ public class DXFDocument {
         }
 
         if (layerTable == null) {
-            layerTable = new DXFTable("LAYER");
+            layerTable = new DXFTable("LAYER", handleAllocator);
             tables.add(layerTable);
         }
 
         layerTable.add(layer);
+        changed(layerTable);
+        layers.put(layer, layer);
 
         return layer;
     }
@@ -490,22 +903,16 @@ public class DXFDocument {
      */
     protected DXFStyle addStyle(DXFStyle style) {
         // first see if style already represented in tables; if so, return it
-        for (int i = 0; i < tables.size(); i++) {
-            DXFTable table = (DXFTable) tables.elementAt(i);
-            if (table.name.equals("STYLE")) {
-                // see if we have the style in the table
-                int index = table.indexOf(style);
-                if (index >= 0) {
-                    return (DXFStyle) table.elementAt(index);
-                }
-            }
+        DXFStyle existing = styles.get(style);
+        if (existing != null) {
+            return existing;
         }
 
 
         // didn't find it; add to one of the STYLE tables, adding one if necessary, and return the style passed in
         DXFTable styleTable = null;
         for (int i = 0; i < tables.size(); i++) {
-            DXFTable table = (DXFTable) tables.elementAt(i);
+            DXFTable table = (DXFTable) tables.get(i);
             if (table.name.equals("STYLE")) {
                 styleTable = table;
                 break;
@@ -513,11 +920,13 @@ public class DXFDocument {
         }
 
         if (styleTable == null) {
-            styleTable = new DXFTable("STYLE");
+            styleTable = new DXFTable("STYLE", handleAllocator);
             tables.add(styleTable);
         }
 
         styleTable.add(style);
+        changed(styleTable);
+        styles.put(style, style);
 
         return style;
     }
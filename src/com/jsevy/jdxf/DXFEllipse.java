@@ -42,7 +42,8 @@ public class DXFEllipse extends DXFEntity {
     private double startParameter;    // parameter t corresponding to the start point of the arc represented as (a*cos(t), b*sin(t))
     private double endParameter;        // parameter t corresponding to the end point of the arc represented as (a*cos(t), b*sin(t))
     private boolean isCounterclockwise; // needed for hatch boundary spec
-    private Color color;
+    // index in the DXF color table, resolved once when the entity is created
+    private int colorIndex;
 
 
     /**
@@ -61,7 +62,7 @@ public class DXFEllipse extends DXFEntity {
      */
     public DXFEllipse(RealPoint center, RealPoint majorAxisEndpoint, double axisRatio, double startParameter, double endParameter, boolean isCounterclockwise, DXFGraphics graphics) {
         // assign the layer to DXFEntity
-        super(graphics.getLayer());
+        super(graphics.getLayer(), graphics.getHandleAllocator());
 
         this.center = new RealPoint(center);
         this.majorAxisEndpoint = new RealPoint(majorAxisEndpoint);
@@ -69,7 +70,7 @@ public class DXFEllipse extends DXFEntity {
         this.startParameter = startParameter;
         this.endParameter = endParameter;
         this.isCounterclockwise = isCounterclockwise;
-        this.color = graphics.getColor();
+        this.colorIndex = DXFColor.getClosestDXFColor(graphics.getColor().getRGB());
         this.linewidth = graphics.getLineWidth();
         this.linetype = graphics.addLinetype();
 
@@ -112,7 +113,7 @@ public class DXFEllipse extends DXFEntity {
         result.append("370\n" + getDXFLineWeight(linewidth) + "\n");
 
         // add color number
-        result.append("62\n" + DXFColor.getClosestDXFColor(color.getRGB()) + "\n");
+        result.append("62\n" + colorIndex + "\n");
 
         return result.toString();
     }
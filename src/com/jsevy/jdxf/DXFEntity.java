@@ -25,6 +25,7 @@
 
 package com.jsevy.jdxf;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 
@@ -36,12 +37,25 @@ import java.math.RoundingMode;
 public class DXFEntity extends DXFDatabaseObject {
     private static int digits = 10;
 
+    // exact powers of ten for the supported range of digits
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16};
+    private static final long[] LONG_POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L,
+            1000000000L, 10000000000L, 100000000000L, 1000000000000L, 10000000000000L, 100000000000000L,
+            1000000000000000L, 10000000000000000L};
+
+    // below this magnitude the fraction of a scaled value is exact and half is representable
+    private static final double MAX_SCALED_VALUE = 1L << 52;
+    // below this magnitude a rounded value has at most 15 significant digits, so Double.toString prints exactly those
+    private static final long MAX_FORMATTED_VALUE = 1000000000000000L;
+
 
     // Layer entity belongs to; null if no layer specified
     protected DXFLayer layer = null;
 
 
-    public DXFEntity(DXFLayer layer) {
+    public DXFEntity(DXFLayer layer, DXFHandleAllocator handleAllocator) {
+        super(handleAllocator);
+
         this.layer = layer;
     }
 
@@ -62,6 +76,16 @@ public class DXFEntity extends DXFDatabaseObject {
     }
 
 
+    /**
+     * Get the number of digits quantities are truncated to with a call to setPrecision()
+     *
+     * @return Number of digits following the decimal point, between 0 and 16
+     */
+    public static int getPrecisionDigits() {
+        return digits;
+    }
+
+
     //public DXFEntity()
     //{
     //    super();
@@ -75,7 +99,103 @@ public class DXFEntity extends DXFDatabaseObject {
      * @return Input with digits following the decimal point truncated to the number of digits specified through a call to setPrecisionDigits
      */
     protected static double setPrecision(double value) {
-        return (new BigDecimal(value)).setScale(digits, RoundingMode.HALF_UP).doubleValue();
+        long scaled = roundScaled(value, digits);
+        if (scaled == Long.MIN_VALUE) {
+            return (new BigDecimal(value)).setScale(digits, RoundingMode.HALF_UP).doubleValue();
+        }
+
+        // both operands are exact, so the division is correctly rounded just like BigDecimal.doubleValue();
+        // adding zero turns a negative zero into the positive zero BigDecimal gives
+        return scaled / POWERS_OF_TEN[digits] + 0.0;
+    }
+
+    /**
+     * Utility method used by subclasses to write a decimal quantity straight into the output, truncated to the
+     * number of digits specified through a call to setPrecisionDigits. The text is identical to that of
+     * Double.toString(setPrecision(value)), but in the common case no intermediate BigDecimal or String is created.
+     *
+     * @param out   The sink to write the value to
+     * @param value Double value to be truncated and written
+     * @throws IOException If the sink throws while writing
+     */
+    protected static void appendPrecision(Appendable out, double value) throws IOException {
+        int decimalDigits = digits;
+        long scaled = roundScaled(value, decimalDigits);
+
+        // Double.toString switches to computerized scientific notation outside [1e-3, 1e7); leave those to it
+        double magnitude = Math.abs(scaled / POWERS_OF_TEN[decimalDigits]);
+        if (scaled == Long.MIN_VALUE || Math.abs(scaled) >= MAX_FORMATTED_VALUE
+                || (scaled != 0 && (magnitude < 1e-3 || magnitude >= 1e7))) {
+            out.append(Double.toString(setPrecision(value)));
+            return;
+        }
+
+        if (scaled < 0) {
+            out.append('-');
+            scaled = -scaled;
+        }
+
+        long integerPart = scaled / LONG_POWERS_OF_TEN[decimalDigits];
+        long fractionPart = scaled % LONG_POWERS_OF_TEN[decimalDigits];
+
+        appendDigits(out, integerPart, 1);
+        out.append('.');
+
+        if (fractionPart == 0) {
+            out.append('0');
+        } else {
+            // drop trailing zeros, as the shortest representation printed by Double.toString has none
+            int fractionDigits = decimalDigits;
+            while (fractionPart % 10 == 0) {
+                fractionPart /= 10;
+                fractionDigits--;
+            }
+            appendDigits(out, fractionPart, fractionDigits);
+        }
+    }
+
+    /**
+     * Round value * 10^decimalDigits half-up to an integer, exactly as BigDecimal.setScale would.
+     *
+     * @return The rounded scaled value, or Long.MIN_VALUE if it is out of range and BigDecimal is needed
+     */
+    private static long roundScaled(double value, int decimalDigits) {
+        double magnitude = Math.abs(value);
+        double scaledValue = magnitude * POWERS_OF_TEN[decimalDigits];
+
+        // also rejects NaN and infinities, for which BigDecimal throws
+        if (!(scaledValue < MAX_SCALED_VALUE)) {
+            return Long.MIN_VALUE;
+        }
+
+        // the exact product is scaledValue + error, with |error| below half an ulp of scaledValue
+        double error = Math.fma(magnitude, POWERS_OF_TEN[decimalDigits], -scaledValue);
+
+        long truncated = (long) scaledValue;
+        double fraction = scaledValue - truncated;
+
+        // fraction lies on the ulp grid, so the error can only tip the balance on an exact half
+        if (fraction > 0.5 || (fraction == 0.5 && error >= 0)) {
+            truncated++;
+        }
+
+        return value < 0 ? -truncated : truncated;
+    }
+
+    /**
+     * Write the decimal digits of a non-negative number, left-padded with zeros to at least minDigits digits.
+     */
+    private static void appendDigits(Appendable out, long number, int minDigits) throws IOException {
+        int numDigits = 1;
+        while (numDigits < LONG_POWERS_OF_TEN.length && LONG_POWERS_OF_TEN[numDigits] <= number) {
+            numDigits++;
+        }
+        numDigits = Math.max(numDigits, minDigits);
+
+        for (int i = numDigits - 1; i >= 0; i--) {
+            long digit = (number / LONG_POWERS_OF_TEN[i]) % 10;
+            out.append((char) ('0' + digit));
+        }
     }
 
     public String toDXFString() {
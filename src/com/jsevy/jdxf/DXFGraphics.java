@@ -35,8 +35,10 @@ import java.awt.image.*;
 import java.awt.image.renderable.RenderableImage;
 import java.text.AttributedCharacterIterator;
 import java.text.CharacterIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
-import java.util.Vector;
 
 
 /**
@@ -79,6 +81,9 @@ public class DXFGraphics extends Graphics2D {
     boolean useCircles;
     // class access; used to indicate if zero-length lines should be represented as points in DXF output
     boolean usePoints;
+    // class access; used to indicate if runs of line segments in paths passed to draw(Shape) should be
+    // represented as lightweight polylines rather than as one line per segment
+    boolean usePolylines;
     private DXFDocument dxfDocument;
     private Color color;
     private Color backColor;
@@ -94,6 +99,12 @@ public class DXFGraphics extends Graphics2D {
     // May be null
     private DXFLayer currentLayer;
 
+    // linetype of the last addLinetype call, valid while the stroke is the same object and, for dashed strokes,
+    // the transform has the same scale
+    private DXFLinetype currentLinetype;
+    private BasicStroke currentLinetypeStroke;
+    private double currentLinetypeScale;
+
     /**
      * Constructs a new DXFGraphics object. Since a DXFGraphics object is
      * always associated with a DXFDocument instance, applications
@@ -107,6 +118,7 @@ public class DXFGraphics extends Graphics2D {
 
         useCircles = true;
         usePoints = true;
+        usePolylines = false;
 
         color = Color.BLACK;
         backColor = Color.WHITE;
@@ -325,11 +337,30 @@ public class DXFGraphics extends Graphics2D {
         throw new UnsupportedOperationException("copyArea not supported");
     }
 
+    /**
+     * Get the handle allocator of the associated document; used in creating entities and table records.
+     *
+     * @return The handle allocator of the associated DXFDocument
+     */
+    protected DXFHandleAllocator getHandleAllocator() {
+        return dxfDocument.getHandleAllocator();
+    }
+
     /**
      * Add a line type corresponding to the current Stroke if an equivalent one isn't already present.
      */
     protected DXFLinetype addLinetype() {
-        return dxfDocument.addLinetype(this);
+        double scaleFactor = 0;
+        if (stroke.getDashArray() != null) {
+            scaleFactor = (Math.abs(javaTransformMatrix.getScaleX()) + Math.abs(javaTransformMatrix.getScaleY())) / 2;
+        }
+        if (currentLinetype != null && currentLinetypeStroke == stroke && currentLinetypeScale == scaleFactor) {
+            return currentLinetype;
+        }
+        currentLinetype = dxfDocument.addLinetype(this);
+        currentLinetypeStroke = stroke;
+        currentLinetypeScale = scaleFactor;
+        return currentLinetype;
     }
 
     /**
@@ -380,6 +411,23 @@ public class DXFGraphics extends Graphics2D {
         dxfDocument.addEntity(new DXFPoint(new RealPoint(points[0], points[1], 0), this));
     }
 
+    /**
+     * Draws an insert of a block defined with DXFDocument.beginBlock and endBlock, placing the block's
+     * base point (0,&nbsp;0) at location <code>(x,&nbsp;y)</code> in this graphics context's coordinate
+     * system. Only the location is transformed; the block isn't rotated or scaled.
+     *
+     * @param blockName the name of the block.
+     * @param x         the <i>x</i> coordinate of the block's base point.
+     * @param y         the <i>y</i> coordinate of the block's base point.
+     */
+    public void drawBlock(String blockName, double x, double y) {
+        // transform the coordinates using the current graphics transform matrix
+        double[] points = new double[]{x, y};
+        graphicsMatrix.transform(points, 0, points, 0, 1);
+
+        dxfDocument.addEntity(new DXFInsert(blockName, new RealPoint(points[0], points[1], 0), this));
+    }
+
     /**
      * Draws a line, using the current color, between the points
      * <code>(x1,&nbsp;y1)</code> and <code>(x2,&nbsp;y2)</code>
@@ -517,13 +565,7 @@ public class DXFGraphics extends Graphics2D {
         graphicsMatrix.transform(pts, 0, pts, 0, 4);
 
         // create as lightweight polyline
-        Vector<RealPoint> vertices = new Vector<RealPoint>();
-        vertices.add(new RealPoint(pts[0], pts[1], 0));
-        vertices.add(new RealPoint(pts[2], pts[3], 0));
-        vertices.add(new RealPoint(pts[4], pts[5], 0));
-        vertices.add(new RealPoint(pts[6], pts[7], 0));
-
-        DXFLWPolyline polyline = new DXFLWPolyline(4 /*vertices*/, vertices, true /*closed*/, this);
+        DXFLWPolyline polyline = new DXFLWPolyline(4 /*vertices*/, pts, true /*closed*/, this);
         dxfDocument.addEntity(polyline);
     }
 
@@ -683,7 +725,7 @@ public class DXFGraphics extends Graphics2D {
         //fill(rect);
 
         // create boundary for hatch
-        Vector<DXFEntity> boundary = new Vector<DXFEntity>();
+        List<DXFEntity> boundary = new ArrayList<DXFEntity>();
 
         double left = x;
         double right = x + width;
@@ -747,7 +789,7 @@ public class DXFGraphics extends Graphics2D {
 
 
         // add Hatch with the above boundary
-        Vector<Vector<DXFEntity>> boundaries = new Vector<Vector<DXFEntity>>();
+        List<List<DXFEntity>> boundaries = new ArrayList<List<DXFEntity>>();
         boundaries.add(boundary);
         DXFHatch hatch = new DXFHatch(boundaries, color, this);
         dxfDocument.addEntity(hatch);
@@ -867,12 +909,12 @@ public class DXFGraphics extends Graphics2D {
      */
     public void fillOval(double x, double y, double width, double height) {
         // create boundary for hatch
-        Vector<DXFEntity> boundary = new Vector<DXFEntity>();
+        List<DXFEntity> boundary = new ArrayList<DXFEntity>();
         DXFEntity dxfEllipse = createDXFEllipticalArc(x, y, width, height, 0, 360);
         boundary.add(dxfEllipse);
 
         // add Hatch with the above boundary
-        Vector<Vector<DXFEntity>> boundaries = new Vector<Vector<DXFEntity>>();
+        List<List<DXFEntity>> boundaries = new ArrayList<List<DXFEntity>>();
         boundaries.add(boundary);
         DXFHatch hatch = new DXFHatch(boundaries, color, this);
         dxfDocument.addEntity(hatch);
@@ -1242,7 +1284,7 @@ public class DXFGraphics extends Graphics2D {
      */
     public void fillArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
         // create boundary path for the wedge
-        Vector<DXFEntity> boundary = new Vector<DXFEntity>();
+        List<DXFEntity> boundary = new ArrayList<DXFEntity>();
 
         double startParameter = (startAngle * (Math.PI / 180));
         double endParameter = ((startAngle + arcAngle) * (Math.PI / 180));
@@ -1265,7 +1307,7 @@ public class DXFGraphics extends Graphics2D {
         }
 
         // add Hatch with the above boundary
-        Vector<Vector<DXFEntity>> boundaries = new Vector<Vector<DXFEntity>>();
+        List<List<DXFEntity>> boundaries = new ArrayList<List<DXFEntity>>();
         boundaries.add(boundary);
         DXFHatch hatch = new DXFHatch(boundaries, color, this);
         dxfDocument.addEntity(hatch);
@@ -1368,13 +1410,8 @@ public class DXFGraphics extends Graphics2D {
         }
         graphicsMatrix.transform(pts, 0, pts, 0, nPoints);
 
-        // create as lightweight polyline
-        Vector<RealPoint> vertices = new Vector<RealPoint>();
-        for (int i = 0; i < nPoints; i++) {
-            vertices.add(new RealPoint(pts[2 * i], pts[2 * i + 1], 0));
-        }
-
-        DXFLWPolyline polyline = new DXFLWPolyline(nPoints, vertices, isClosed, this);
+        // create as lightweight polyline; the transformed coordinates are handed over as they are
+        DXFLWPolyline polyline = new DXFLWPolyline(nPoints, pts, isClosed, this);
         dxfDocument.addEntity(polyline);
     }
 
@@ -1524,7 +1561,7 @@ public class DXFGraphics extends Graphics2D {
      *                         control point multiplicities to degree + 1
      */
     public void drawSpline(int degree, double[] controlPoints, int[] multiplicities, boolean throughEndpoints) {
-        Vector<SplineControlPoint> transformedControlPoints = new Vector<SplineControlPoint>();
+        List<SplineControlPoint> transformedControlPoints = new ArrayList<SplineControlPoint>();
 
         // transform the control points according to the current transform matrix
         for (int i = 0; i < controlPoints.length / 2; i++) {
@@ -1809,7 +1846,7 @@ public class DXFGraphics extends Graphics2D {
      */
     private DXFStyle addFontStyle() {
 
-        DXFStyle style = new DXFStyle(this.font);
+        DXFStyle style = new DXFStyle(this.font, getHandleAllocator());
         return dxfDocument.addStyle(style);
 
     }
@@ -1868,6 +1905,8 @@ public class DXFGraphics extends Graphics2D {
             double[] controlPoints = {spline.getX1(), spline.getY1(), spline.getCtrlX1(), spline.getCtrlY1(), spline.getCtrlX2(), spline.getCtrlY2(), spline.getX2(), spline.getY2()};
             double[] knots = {0, 0, 0, 0, 1, 1, 1, 1};
             this.drawSpline(3, controlPoints, knots);
+        } else if (usePolylines) {
+            drawPathAsPolylines(shape.getPathIterator(new AffineTransform()));
         } else {
             // general approach: get a PathIterator, and draw each returned path segment
             PathIterator iterator = shape.getPathIterator(new AffineTransform());
@@ -1957,6 +1996,168 @@ public class DXFGraphics extends Graphics2D {
 
     }
 
+    /**
+     * Draws a path like the general case of draw(Shape), except that each run of consecutive line segments
+     * becomes a single lightweight polyline rather than one line per segment. A run that spans a whole
+     * subpath ended by SEG_CLOSE becomes a closed polyline. Zero-length segments are dropped from the runs.
+     *
+     * @param iterator path to be drawn
+     */
+    private void drawPathAsPolylines(PathIterator iterator) {
+        double[] coords = new double[6];
+
+        // first step has to be a MOVETO, to set initial point
+        if (iterator.isDone() || iterator.currentSegment(coords) != PathIterator.SEG_MOVETO) {
+            return;
+        }
+
+        double initialX = 0;
+        double initialY = 0;
+        double currentX = 0;
+        double currentY = 0;
+
+        // vertices of the current run of line segments, and whether the run started at the start of the subpath
+        double[] xPoints = new double[16];
+        double[] yPoints = new double[16];
+        int nPoints = 0;
+        boolean runStartsSubpath = false;
+
+        while (!iterator.isDone()) {
+            int curveType = iterator.currentSegment(coords);
+
+            switch (curveType) {
+                case PathIterator.SEG_MOVETO: {
+                    drawRun(xPoints, yPoints, nPoints, false);
+                    nPoints = 0;
+                    runStartsSubpath = true;
+
+                    initialX = coords[0];
+                    initialY = coords[1];
+
+                    currentX = coords[0];
+                    currentY = coords[1];
+                    break;
+                }
+
+                case PathIterator.SEG_LINETO: {
+                    if (nPoints == 0) {
+                        xPoints[0] = currentX;
+                        yPoints[0] = currentY;
+                        nPoints = 1;
+                    }
+                    if (nPoints == xPoints.length) {
+                        xPoints = Arrays.copyOf(xPoints, 2 * nPoints);
+                        yPoints = Arrays.copyOf(yPoints, 2 * nPoints);
+                    }
+                    xPoints[nPoints] = coords[0];
+                    yPoints[nPoints] = coords[1];
+                    nPoints++;
+
+                    currentX = coords[0];
+                    currentY = coords[1];
+                    break;
+                }
+
+                case PathIterator.SEG_QUADTO: {
+                    drawRun(xPoints, yPoints, nPoints, false);
+                    nPoints = 0;
+                    runStartsSubpath = false;
+
+                    double[] controlPoints = {currentX, currentY, coords[0], coords[1], coords[2], coords[3]};
+                    double[] knots = {0, 0, 0, 1, 1, 1};
+                    this.drawSpline(2, controlPoints, knots);
+
+                    currentX = coords[2];
+                    currentY = coords[3];
+                    break;
+                }
+
+                case PathIterator.SEG_CUBICTO: {
+                    drawRun(xPoints, yPoints, nPoints, false);
+                    nPoints = 0;
+                    runStartsSubpath = false;
+
+                    double[] controlPoints = {currentX, currentY, coords[0], coords[1], coords[2], coords[3], coords[4], coords[5]};
+                    double[] knots = {0, 0, 0, 0, 1, 1, 1, 1};
+                    this.drawSpline(3, controlPoints, knots);
+
+                    currentX = coords[4];
+                    currentY = coords[5];
+                    break;
+                }
+
+                case PathIterator.SEG_CLOSE: {
+                    if ((currentX != initialX) || (currentY != initialY)) {
+                        if (nPoints == 0) {
+                            xPoints[0] = currentX;
+                            yPoints[0] = currentY;
+                            nPoints = 1;
+                        }
+                        if (nPoints == xPoints.length) {
+                            xPoints = Arrays.copyOf(xPoints, 2 * nPoints);
+                            yPoints = Arrays.copyOf(yPoints, 2 * nPoints);
+                        }
+                        xPoints[nPoints] = initialX;
+                        yPoints[nPoints] = initialY;
+                        nPoints++;
+                    }
+                    drawRun(xPoints, yPoints, nPoints, runStartsSubpath);
+                    nPoints = 0;
+                    runStartsSubpath = true;
+
+                    currentX = initialX;
+                    currentY = initialY;
+                    break;
+                }
+
+                default: {
+                    // do nothing
+                    break;
+                }
+            }
+
+            iterator.next();
+        }
+
+        drawRun(xPoints, yPoints, nPoints, false);
+    }
+
+
+    /**
+     * Draws a run of line segments collected by drawPathAsPolylines, dropping zero-length segments. A closed
+     * run ends at its first vertex; the closed flag of the polyline stands in for that last segment. A run that
+     * is a single line, or only a point, is drawn with drawLine.
+     */
+    private void drawRun(double[] xPoints, double[] yPoints, int nPoints, boolean isClosed) {
+        if (nPoints < 2) {
+            return;
+        }
+
+        // drop repeated vertices in place
+        int nDistinct = 1;
+        for (int i = 1; i < nPoints; i++) {
+            if ((xPoints[i] != xPoints[nDistinct - 1]) || (yPoints[i] != yPoints[nDistinct - 1])) {
+                xPoints[nDistinct] = xPoints[i];
+                yPoints[nDistinct] = yPoints[i];
+                nDistinct++;
+            }
+        }
+
+        if (isClosed) {
+            while ((nDistinct > 1) && (xPoints[nDistinct - 1] == xPoints[0]) && (yPoints[nDistinct - 1] == yPoints[0])) {
+                nDistinct--;
+            }
+        }
+
+        if (nDistinct == 1) {
+            drawLine(xPoints[0], yPoints[0], xPoints[0], yPoints[0]);
+        } else if ((nDistinct == 2) && !isClosed) {
+            drawLine(xPoints[0], yPoints[0], xPoints[1], yPoints[1]);
+        } else {
+            drawPolyline(xPoints, yPoints, nDistinct, isClosed);
+        }
+    }
+
     /**
      * Throws UnsupportedOperationException as glyph drawing not supported.
      */
@@ -2111,7 +2312,7 @@ public class DXFGraphics extends Graphics2D {
         // construct boundary; handle circle and ellipse separately since DXF has special boundary types
         // for these, while Java PathIterator surprisingly doesn't have circular arcs as primitives
 
-        Vector<Vector<DXFEntity>> boundaries = new Vector<Vector<DXFEntity>>();
+        List<List<DXFEntity>> boundaries = new ArrayList<List<DXFEntity>>();
 
         // general approach: get a PathIterator, and draw each returned path segment
         PathIterator iterator = shape.getPathIterator(new AffineTransform());
@@ -2126,7 +2327,7 @@ public class DXFGraphics extends Graphics2D {
 
         if (curveType == PathIterator.SEG_MOVETO) {
             // first boundary curve
-            Vector<DXFEntity> boundary = new Vector<DXFEntity>();
+            List<DXFEntity> boundary = new ArrayList<DXFEntity>();
             boundaries.add(boundary);
 
             //graphicsMatrix.transform(coords, 0, coords, 0, 2);
@@ -2145,7 +2346,7 @@ public class DXFGraphics extends Graphics2D {
                 switch (curveType) {
                     case PathIterator.SEG_MOVETO: {
                         // consider this the start of a new boundary curve
-                        boundary = new Vector<DXFEntity>();
+                        boundary = new ArrayList<DXFEntity>();
                         boundaries.add(boundary);
 
                         //graphicsMatrix.transform(coords, 0, coords, 0, 2);
@@ -2180,7 +2381,7 @@ public class DXFGraphics extends Graphics2D {
                         boundary.add(spline);
 
                         /*
-                        Vector<SplineControlPoint> transformedControlPoints = new Vector<SplineControlPoint>();
+                        List<SplineControlPoint> transformedControlPoints = new ArrayList<SplineControlPoint>();
 
                         // transform the control points according to the current transform matrix
                         for (int i = 0; i < controlPoints.length/2; i++)
@@ -0,0 +1,61 @@
+/*
+ * JDXF Library
+ *
+ *   Copyright (C) 2018, Jonathan Sevy <jsevy@jsevy.com>
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ *
+ */
+
+package com.jsevy.jdxf;
+
+
+/**
+ * Hands out the database handles for the objects of a single DXF document. Each DXFDocument owns one, so the
+ * handles in a file only depend on that document's contents and separate documents can be generated concurrently.
+ * An allocator itself is not thread-safe; a document is expected to be built by one thread at a time.
+ *
+ * @author jsevy
+ */
+public class DXFHandleAllocator {
+
+    private int handleCount = 1;
+
+
+    /**
+     * Return a new handle, unique within the owning document
+     *
+     * @return The next unused handle
+     */
+    public int nextHandle() {
+        int handle = handleCount;
+        handleCount++;
+        return handle;
+    }
+
+    /**
+     * Return current handle count so can know what ones have been used
+     *
+     * @return Current handle count
+     */
+    public int getHandleCount() {
+        return handleCount;
+    }
+
+}
\ No newline at end of file
@@ -27,7 +27,7 @@ package com.jsevy.jdxf;
 
 
 import java.awt.*;
-import java.util.Vector;
+import java.util.List;
 
 
 /**
@@ -37,8 +37,9 @@ import java.util.Vector;
  */
 public class DXFHatch extends DXFEntity {
     // need a list of boundaries to handle regions with holes
-    private Vector<Vector<DXFEntity>> boundaries;
-    private Color color;
+    private List<List<DXFEntity>> boundaries;
+    // index in the DXF color table, resolved once when the entity is created
+    private int colorIndex;
 
     /**
      * Create a Hatch with the supplied list of boundaries
@@ -47,12 +48,12 @@ public class DXFHatch extends DXFEntity {
      * @param color      The color of the hatch
      * @param graphics   graphics instance, used to determine current layer
      */
-    public DXFHatch(Vector<Vector<DXFEntity>> boundaries, Color color, DXFGraphics graphics) {
+    public DXFHatch(List<List<DXFEntity>> boundaries, Color color, DXFGraphics graphics) {
         // assign the layer to DXFEntity
-        super(graphics.getLayer());
+        super(graphics.getLayer(), graphics.getHandleAllocator());
 
         this.boundaries = boundaries;
-        this.color = color;
+        this.colorIndex = DXFColor.getClosestDXFColor(color.getRGB());
     }
 
 
@@ -91,7 +92,7 @@ public class DXFHatch extends DXFEntity {
         result.append("91\n" + boundaries.size() + "\n");
 
         for (int j = 0; j < boundaries.size(); j++) {
-            Vector<DXFEntity> boundary = boundaries.elementAt(j);
+            List<DXFEntity> boundary = boundaries.get(j);
 
             // type of boundary - default
             result.append("92\n" + "0" + "\n");
@@ -101,7 +102,7 @@ public class DXFHatch extends DXFEntity {
 
             // print out boundary data for each boundary curve
             for (int i = 0; i < boundary.size(); i++) {
-                result.append(boundary.elementAt(i).getDXFHatchInfo());
+                result.append(boundary.get(i).getDXFHatchInfo());
             }
 
             // number of source boundary objects - 0, for AutoCAD
@@ -110,7 +111,7 @@ public class DXFHatch extends DXFEntity {
         }
 
         // add color number
-        result.append("62\n" + DXFColor.getClosestDXFColor(color.getRGB()) + "\n");
+        result.append("62\n" + colorIndex + "\n");
 
         // y'know how order really shouldn't matter for these hatch parameters? Well
         // somebody should tell AutoCAD Viewer that!!! These need to be here, not before the boundary specs - gah!!!
@@ -25,7 +25,8 @@
 
 package com.jsevy.jdxf;
 
-import java.util.Vector;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Class representing a header for use in HEADERS section.
@@ -33,13 +34,13 @@ import java.util.Vector;
  * @author jsevy
  */
 public class DXFHeaderSegment implements DXFObject {
-    private Vector<HeaderLine> lines;
+    private List<HeaderLine> lines;
 
     /**
      * Create a header segment that can have header lines.
      */
     public DXFHeaderSegment() {
-        lines = new Vector<HeaderLine>();
+        lines = new ArrayList<HeaderLine>();
     }
 
     public void addHeaderLine(String name, int code, String value) {
@@ -55,7 +56,7 @@ public class DXFHeaderSegment implements DXFObject {
 
         // iterate over header lines
         for (int i = 0; i < lines.size(); i++) {
-            HeaderLine headerLine = lines.elementAt(i);
+            HeaderLine headerLine = lines.get(i);
 
             // print out each line
             result.append("9\n");
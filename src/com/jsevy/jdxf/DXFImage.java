@@ -15,7 +15,7 @@ public class DXFImage extends DXFEntity {
 
     public DXFImage(BufferedImage image, RealPoint basePoint, RealPoint uVector, RealPoint vVector, DXFGraphics graphics) {
         // assign the layer to DXFEntity
-        super(graphics.getLayer());
+        super(graphics.getLayer(), graphics.getHandleAllocator());
 
         this.basePoint = basePoint;
         this.uVector = uVector;
@@ -0,0 +1,78 @@
+/*
+ * JDXF Library
+ *
+ *   Copyright (C) 2018, Jonathan Sevy <jsevy@jsevy.com>
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in all
+ *   copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *   IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *   FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *   AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *   LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *   OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ *   SOFTWARE.
+ *
+ */
+
+package com.jsevy.jdxf;
+
+
+/**
+ * Class representing an insert of a block, a reference to the entities of a block defined with
+ * DXFDocument.beginBlock and endBlock, placed with the block's base point (0, 0) at a given location.
+ *
+ * @author jsevy
+ */
+public class DXFInsert extends DXFEntity {
+    private String blockName;
+    private RealPoint point;
+
+
+    /**
+     * Create an insert of a block.
+     *
+     * @param blockName Name of the block
+     * @param point     Location of the block's base point
+     * @param graphics  The graphics object specifying parameters for this entity (layer)
+     */
+    public DXFInsert(String blockName, RealPoint point, DXFGraphics graphics) {
+        // assign the layer to DXFEntity
+        super(graphics.getLayer(), graphics.getHandleAllocator());
+
+        this.blockName = blockName;
+        this.point = new RealPoint(point);
+    }
+
+
+    /**
+     * Implementation of DXFObject interface method; creates DXF text representing the insert.
+     */
+    public String toDXFString() {
+        StringBuilder result = new StringBuilder("0\nINSERT\n");
+
+        // print out handle and superclass marker(s)
+        result.append(super.toDXFString());
+
+        // print out subclass marker
+        result.append("100\nAcDbBlockReference\n");
+
+        // name of the inserted block
+        result.append("2\n" + blockName + "\n");
+
+        // insertion point
+        result.append("10\n" + setPrecision(point.x) + "\n");
+        result.append("20\n" + setPrecision(point.y) + "\n");
+        result.append("30\n" + setPrecision(point.z) + "\n");
+
+        return result.toString();
+    }
+}
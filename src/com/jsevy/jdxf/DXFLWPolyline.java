@@ -26,7 +26,7 @@
 package com.jsevy.jdxf;
 
 import java.awt.*;
-import java.util.Vector;
+import java.io.IOException;
 
 
 /**
@@ -38,9 +38,11 @@ public class DXFLWPolyline extends DXFEntity {
     protected double linewidth;
     protected DXFLinetype linetype;
     private int numVertices;
-    private Vector<RealPoint> vertices;
+    // vertex coordinates packed as x0, y0, x1, y1, ...; all vertices have z = 0
+    private double[] coordinates;
     private boolean closed;
-    private Color color;
+    // index in the DXF color table, resolved once when the entity is created
+    private int colorIndex;
 
 
     /**
@@ -48,18 +50,19 @@ public class DXFLWPolyline extends DXFEntity {
      * to the first if closed is indicated.
      *
      * @param numVertices The number of vertices specified in the vertex list
-     * @param vertices    The vertices
+     * @param coordinates The x and y coordinates of the vertices, packed as x0, y0, x1, y1, ...; the array is kept,
+     *                    not copied
      * @param closed      If true, adds a segment between the last and first points
      * @param graphics    The graphics object specifying parameters for this entity (color, thickness)
      */
-    public DXFLWPolyline(int numVertices, Vector<RealPoint> vertices, boolean closed, DXFGraphics graphics) {
+    public DXFLWPolyline(int numVertices, double[] coordinates, boolean closed, DXFGraphics graphics) {
         // assign the layer to DXFEntity
-        super(graphics.getLayer());
+        super(graphics.getLayer(), graphics.getHandleAllocator());
 
         this.numVertices = numVertices;
-        this.vertices = vertices;
+        this.coordinates = coordinates;
         this.closed = closed;
-        this.color = graphics.getColor();
+        this.colorIndex = DXFColor.getClosestDXFColor(graphics.getColor().getRGB());
         this.linewidth = graphics.getLineWidth();
         this.linetype = graphics.addLinetype();
     }
@@ -88,11 +91,10 @@ public class DXFLWPolyline extends DXFEntity {
         }
 
         // include list of vertices
-        for (int i = 0; i < vertices.size(); i++) {
-            RealPoint point = vertices.elementAt(i);
-            result.append("10\n" + setPrecision(point.x) + "\n");
-            result.append("20\n" + setPrecision(point.y) + "\n");
-            result.append("30\n" + setPrecision(point.z) + "\n");
+        for (int i = 0; i < numVertices; i++) {
+            result.append("10\n" + setPrecision(coordinates[2 * i]) + "\n");
+            result.append("20\n" + setPrecision(coordinates[2 * i + 1]) + "\n");
+            result.append("30\n" + setPrecision(0.0) + "\n");
         }
 
         // add linetype
@@ -102,8 +104,89 @@ public class DXFLWPolyline extends DXFEntity {
         result.append("370\n" + getDXFLineWeight(linewidth) + "\n");
 
         // add color number
-        result.append("62\n" + DXFColor.getClosestDXFColor(color.getRGB()) + "\n");
+        result.append("62\n" + colorIndex + "\n");
 
         return result.toString();
     }
+
+
+    /**
+     * Streaming counterpart of toDXFString; writes the vertices straight to the sink rather than
+     * concatenating a string per group code.
+     */
+    public void writeTo(Appendable out) throws IOException {
+        out.append("0\nLWPOLYLINE\n");
+
+        // print out handle and superclass marker(s)
+        out.append(super.toDXFString());
+
+        // print out subclass marker
+        out.append("100\nAcDbPolyline\n");
+
+        // include number of vertices
+        out.append("90\n").append(Integer.toString(numVertices)).append("\n");
+
+        // indicate if closed
+        if (closed) {
+            out.append("70\n1\n");
+        } else {
+            out.append("70\n0\n");
+        }
+
+        // include list of vertices
+        for (int i = 0; i < numVertices; i++) {
+            out.append("10\n");
+            appendPrecision(out, coordinates[2 * i]);
+            out.append("\n20\n");
+            appendPrecision(out, coordinates[2 * i + 1]);
+            out.append("\n30\n");
+            appendPrecision(out, 0.0);
+            out.append("\n");
+        }
+
+        // add linetype
+        out.append("6\n").append(linetype.getName()).append("\n");
+
+        // add thickness; specified in Java in pixels at 72 pixels/inch; needs to be in 1/100 of mm for DXF, and restricted range of values
+        out.append("370\n").append(Integer.toString(getDXFLineWeight(linewidth))).append("\n");
+
+        // add color number
+        out.append("62\n").append(Integer.toString(colorIndex)).append("\n");
+    }
+
+    /**
+     * Binary counterpart of writeTo; writes the truncated vertex coordinates as doubles, the same values the text
+     * form holds.
+     */
+    public void writeBinary(DXFBinaryWriter out) throws IOException {
+        out.writeString(0, "LWPOLYLINE");
+
+        // print out handle and superclass marker(s)
+        out.writeGroups(super.toDXFString());
+
+        // print out subclass marker
+        out.writeString(100, "AcDbPolyline");
+
+        // include number of vertices
+        out.writeInteger(90, numVertices);
+
+        // indicate if closed
+        out.writeInteger(70, closed ? 1 : 0);
+
+        // include list of vertices
+        for (int i = 0; i < numVertices; i++) {
+            out.writeDouble(10, setPrecision(coordinates[2 * i]));
+            out.writeDouble(20, setPrecision(coordinates[2 * i + 1]));
+            out.writeDouble(30, setPrecision(0.0));
+        }
+
+        // add linetype
+        out.writeString(6, linetype.getName());
+
+        // add thickness
+        out.writeInteger(370, getDXFLineWeight(linewidth));
+
+        // add color number
+        out.writeInteger(62, colorIndex);
+    }
 }
\ No newline at end of file
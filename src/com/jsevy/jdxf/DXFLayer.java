@@ -38,9 +38,12 @@ public class DXFLayer extends DXFTableRecord {
     /**
      * Create a LAYER table record object with specified name.
      *
-     * @param name name of table record
+     * @param name            name of table record
+     * @param handleAllocator Handle allocator of the owning document
      */
-    public DXFLayer(String name) {
+    public DXFLayer(String name, DXFHandleAllocator handleAllocator) {
+        super(handleAllocator);
+
         this.name = name;
     }
 
@@ -70,6 +73,16 @@ public class DXFLayer extends DXFTableRecord {
     }
 
 
+    /**
+     * Hash code consistent with equals, for use as a key in the layer lookup of DXFDocument
+     *
+     * @return Hash code of the layer name
+     */
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+
     /**
      * Implementation of DXFObject interface method; creates DXF text representing the object.
      */
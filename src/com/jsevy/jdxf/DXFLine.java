@@ -37,7 +37,8 @@ public class DXFLine extends DXFEntity {
     protected double linewidth;
     protected DXFLinetype linetype;
     private RealPoint start, end;
-    private Color color;
+    // index in the DXF color table, resolved once when the entity is created
+    private int colorIndex;
 
 
     /**
@@ -49,11 +50,11 @@ public class DXFLine extends DXFEntity {
      */
     public DXFLine(RealPoint start, RealPoint end, DXFGraphics graphics) {
         // assign the layer to DXFEntity
-        super(graphics.getLayer());
+        super(graphics.getLayer(), graphics.getHandleAllocator());
 
         this.start = new RealPoint(start);
         this.end = new RealPoint(end);
-        this.color = graphics.getColor();
+        this.colorIndex = DXFColor.getClosestDXFColor(graphics.getColor().getRGB());
         this.linewidth = graphics.getLineWidth();
         this.linetype = graphics.addLinetype();
 
@@ -87,7 +88,7 @@ public class DXFLine extends DXFEntity {
         result.append("370\n" + getDXFLineWeight(linewidth) + "\n");
 
         // add color number
-        result.append("62\n" + DXFColor.getClosestDXFColor(color.getRGB()) + "\n");
+        result.append("62\n" + colorIndex + "\n");
 
         return result.toString();
     }
@@ -35,8 +35,6 @@ import java.util.Arrays;
  * @author jsevy
  */
 public class DXFLinetype extends DXFTableRecord {
-    // used for generating unique linetype names as needed
-    private static int linetypeNumber = 0;
     private String name;
     private double[] dashArray;
 
@@ -45,9 +43,12 @@ public class DXFLinetype extends DXFTableRecord {
      * Create a new linetype with specified name and dash pattern
      *
      * @param name     Name of this line type table record
-     * @param graphics Graphics instance, used to get BasicStroke indicating pattern and sizes of spaces, dots and dashes
+     * @param graphics Graphics instance, used to get BasicStroke indicating pattern and sizes of spaces, dots and dashes,
+     *                 and the handle allocator of the owning document
      */
-    public DXFLinetype(String name, Graphics2D graphics) {
+    public DXFLinetype(String name, DXFGraphics graphics) {
+        super(graphics.getHandleAllocator());
+
         this.name = name;
 
         BasicStroke stroke = (BasicStroke) graphics.getStroke();
@@ -74,13 +75,6 @@ public class DXFLinetype extends DXFTableRecord {
 
     }
 
-    public static String getNextName() {
-        String name = "Linetype_" + linetypeNumber;
-        linetypeNumber++;
-
-        return name;
-    }
-
     public String getName() {
         return name;
     }
@@ -103,6 +97,15 @@ public class DXFLinetype extends DXFTableRecord {
         }
     }
 
+    /**
+     * Hash code consistent with equals, for use as a key in the linetype lookup of DXFDocument
+     *
+     * @return Hash code of the dash array
+     */
+    public int hashCode() {
+        return Arrays.hashCode(dashArray);
+    }
+
     /**
      * Implementation of DXFObject interface method; creates DXF text representing the object.
      */
@@ -25,6 +25,8 @@
 
 package com.jsevy.jdxf;
 
+import java.io.IOException;
+
 
 /**
  * Interface for all DXF objects, including graphical entities. Requires only that each
@@ -36,4 +38,29 @@ public interface DXFObject {
 
     public String toDXFString();
 
+    /**
+     * Write the DXF text for this object to the supplied sink. The default just appends the result of
+     * toDXFString(); containers and entities with large content override this to stream their text
+     * directly without building intermediate strings. Output must be identical to toDXFString().
+     *
+     * @param out The sink to write the DXF text to
+     * @throws IOException If the sink throws while writing
+     */
+    public default void writeTo(Appendable out) throws IOException {
+        out.append(toDXFString());
+    }
+
+
+    /**
+     * Write this object in binary DXF to the supplied writer. The default converts the text of toDXFString();
+     * containers and entities with large content override this to write their groups directly. The groups must be
+     * identical to those of toDXFString().
+     *
+     * @param out The writer to write the binary groups to
+     * @throws IOException If the underlying stream throws while writing
+     */
+    public default void writeBinary(DXFBinaryWriter out) throws IOException {
+        out.writeGroups(toDXFString());
+    }
+
 }
\ No newline at end of file
@@ -37,7 +37,8 @@ public class DXFPoint extends DXFEntity {
     protected double linewidth;
     protected DXFLinetype linetype;
     private RealPoint point;
-    private Color color;
+    // index in the DXF color table, resolved once when the entity is created
+    private int colorIndex;
 
 
     /**
@@ -49,10 +50,10 @@ public class DXFPoint extends DXFEntity {
      */
     public DXFPoint(RealPoint point, DXFGraphics graphics) {
         // assign the layer to DXFEntity
-        super(graphics.getLayer());
+        super(graphics.getLayer(), graphics.getHandleAllocator());
 
         this.point = new RealPoint(point);
-        this.color = graphics.getColor();
+        this.colorIndex = DXFColor.getClosestDXFColor(graphics.getColor().getRGB());
         this.linewidth = graphics.getLineWidth();
         this.linetype = graphics.addLinetype();
     }
@@ -81,7 +82,7 @@ public class DXFPoint extends DXFEntity {
         result.append("370\n" + getDXFLineWeight(linewidth) + "\n");
 
         // add color number
-        result.append("62\n" + DXFColor.getClosestDXFColor(color.getRGB()) + "\n");
+        result.append("62\n" + colorIndex + "\n");
 
         return result.toString();
     }
@@ -25,6 +25,7 @@
 
 package com.jsevy.jdxf;
 
+import java.io.IOException;
 
 /**
  * DXFContainer subclass for sections in the DXF document.
@@ -63,4 +64,28 @@ public class DXFSection extends DXFContainer {
         return result.toString();
     }
 
+    /**
+     * Streaming counterpart of toDXFString; writes the section and its contained DXF objects/entities to the sink.
+     */
+    public void writeTo(Appendable out) throws IOException {
+        out.append("0\nSECTION\n");
+        out.append("2\n").append(name).append("\n");
+
+        super.writeTo(out);
+
+        out.append("0\nENDSEC\n");
+    }
+
+    /**
+     * Binary counterpart of writeTo.
+     */
+    public void writeBinary(DXFBinaryWriter out) throws IOException {
+        out.writeString(0, "SECTION");
+        out.writeString(2, name);
+
+        super.writeBinary(out);
+
+        out.writeString(0, "ENDSEC");
+    }
+
 }
\ No newline at end of file
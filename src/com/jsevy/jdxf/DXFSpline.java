@@ -26,7 +26,8 @@
 package com.jsevy.jdxf;
 
 import java.awt.*;
-import java.util.Vector;
+import java.util.ArrayList;
+import java.util.List;
 
 
 /**
@@ -38,10 +39,11 @@ public class DXFSpline extends DXFEntity {
     protected double linewidth;
     protected DXFLinetype linetype;
     private int degree;
-    private Vector<RealPoint> expandedControlPoints;
+    private List<RealPoint> expandedControlPoints;
     private double[] knots;
     private boolean closed;
-    private Color color;
+    // index in the DXF color table, resolved once when the entity is created
+    private int colorIndex;
 
 
     /**
@@ -53,20 +55,20 @@ public class DXFSpline extends DXFEntity {
      *                         control point multiplicities to degree + 1
      * @param graphics         The graphics object specifying parameters for this entity (color, thickness)
      */
-    public DXFSpline(int degree, Vector<SplineControlPoint> controlPoints, boolean throughEndpoints, DXFGraphics graphics) {
+    public DXFSpline(int degree, List<SplineControlPoint> controlPoints, boolean throughEndpoints, DXFGraphics graphics) {
         // assign the layer to DXFEntity
-        super(graphics.getLayer());
+        super(graphics.getLayer(), graphics.getHandleAllocator());
 
         // if pass through endpoints, set multiplicities of first and last control points to degree + 1
         if (throughEndpoints) {
-            controlPoints.elementAt(0).multiplicity = degree + 1;
-            controlPoints.elementAt(controlPoints.size() - 1).multiplicity = degree + 1;
+            controlPoints.get(0).multiplicity = degree + 1;
+            controlPoints.get(controlPoints.size() - 1).multiplicity = degree + 1;
         }
 
         this.degree = degree;
         createExpandedPointVector(controlPoints);
         this.closed = false;
-        this.color = graphics.getColor();
+        this.colorIndex = DXFColor.getClosestDXFColor(graphics.getColor().getRGB());
         this.linewidth = graphics.getLineWidth();
         this.linetype = graphics.addLinetype();
 
@@ -88,16 +90,16 @@ public class DXFSpline extends DXFEntity {
      */
     public DXFSpline(int degree, double[] controlPoints, double[] knots, DXFGraphics graphics) {
         // assign the layer to DXFEntity
-        super(graphics.getLayer());
+        super(graphics.getLayer(), graphics.getHandleAllocator());
 
         this.degree = degree;
         this.closed = false;
-        this.color = graphics.getColor();
+        this.colorIndex = DXFColor.getClosestDXFColor(graphics.getColor().getRGB());
         this.linewidth = graphics.getLineWidth();
         this.linetype = graphics.addLinetype();
 
         // populate expanded control point vector
-        expandedControlPoints = new Vector<RealPoint>();
+        expandedControlPoints = new ArrayList<RealPoint>();
         for (int i = 0; i < controlPoints.length / 2; i++) {
             RealPoint controlPoint = new RealPoint(controlPoints[2 * i], controlPoints[2 * i + 1], 0);
             expandedControlPoints.add(controlPoint);
@@ -145,7 +147,7 @@ public class DXFSpline extends DXFEntity {
 
         // now control points and weights
         for (int i = 0; i < expandedControlPoints.size(); i++) {
-            RealPoint point = expandedControlPoints.elementAt(i);
+            RealPoint point = expandedControlPoints.get(i);
             result.append("10\n" + setPrecision(point.x) + "\n");
             result.append("20\n" + setPrecision(point.y) + "\n");
             result.append("30\n" + setPrecision(point.z) + "\n");
@@ -159,7 +161,7 @@ public class DXFSpline extends DXFEntity {
         result.append("370\n" + getDXFLineWeight(linewidth) + "\n");
 
         // add color number
-        result.append("62\n" + DXFColor.getClosestDXFColor(color.getRGB()) + "\n");
+        result.append("62\n" + colorIndex + "\n");
 
         return result.toString();
     }
@@ -191,7 +193,7 @@ public class DXFSpline extends DXFEntity {
 
         // now control points and weights
         for (int i = 0; i < expandedControlPoints.size(); i++) {
-            RealPoint point = expandedControlPoints.elementAt(i);
+            RealPoint point = expandedControlPoints.get(i);
             result.append("10\n" + setPrecision(point.x) + "\n");
             result.append("20\n" + setPrecision(point.y) + "\n");
             // all weights 1; multiplicities already accounted for
@@ -206,16 +208,16 @@ public class DXFSpline extends DXFEntity {
      * Create vector of control points with points multiply represented according to their multiplicities,
      * and appropriate multiplicity at endpoints to pass through these.
      */
-    private void createExpandedPointVector(Vector<SplineControlPoint> controlPoints) {
+    private void createExpandedPointVector(List<SplineControlPoint> controlPoints) {
 
         int index = 0;
 
-        expandedControlPoints = new Vector<RealPoint>();
+        expandedControlPoints = new ArrayList<RealPoint>();
 
         if (controlPoints.size() != 0) {
 
             for (int j = 0; j < controlPoints.size(); j++) {
-                SplineControlPoint controlPoint = controlPoints.elementAt(j);
+                SplineControlPoint controlPoint = controlPoints.get(j);
                 controlPoint.expandedIndex = index;
 
                 for (int i = 0; i < controlPoint.multiplicity; i++) {
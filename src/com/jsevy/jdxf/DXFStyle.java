@@ -45,9 +45,12 @@ public class DXFStyle extends DXFTableRecord {
     /**
      * Create a style object corresponding to the supplied Java typeface object.
      *
-     * @param font Font whose parameters (size, style, typeface) should be represented in the style object
+     * @param font            Font whose parameters (size, style, typeface) should be represented in the style object
+     * @param handleAllocator Handle allocator of the owning document
      */
-    public DXFStyle(Font font) {
+    public DXFStyle(Font font, DXFHandleAllocator handleAllocator) {
+        super(handleAllocator);
+
         this.javaFont = font;
         this.dxfFontName = getDXFFontName(font);
 
@@ -170,6 +173,15 @@ public class DXFStyle extends DXFTableRecord {
         }
     }
 
+    /**
+     * Hash code consistent with equals, for use as a key in the style lookup of DXFDocument
+     *
+     * @return Hash code of the font
+     */
+    public int hashCode() {
+        return javaFont.hashCode();
+    }
+
     /**
      * Get the name for this style object, for use within a DXFText entity.
      *
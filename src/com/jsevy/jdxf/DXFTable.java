@@ -25,7 +25,8 @@
 
 package com.jsevy.jdxf;
 
-import java.util.Vector;
+import java.io.IOException;
+import java.util.ArrayList;
 
 
 /**
@@ -33,7 +34,7 @@ import java.util.Vector;
  *
  * @author jsevy
  */
-public class DXFTable extends Vector<DXFDatabaseObject> implements DXFObject {
+public class DXFTable extends ArrayList<DXFDatabaseObject> implements DXFObject {
     private static final long serialVersionUID = 1L;
 
     public String name;
@@ -45,13 +46,14 @@ public class DXFTable extends Vector<DXFDatabaseObject> implements DXFObject {
     /**
      * Create a DXF table with the specified name.
      *
-     * @param name The name of the table
+     * @param name            The name of the table
+     * @param handleAllocator Handle allocator of the owning document
      */
-    public DXFTable(String name) {
+    public DXFTable(String name, DXFHandleAllocator handleAllocator) {
         this.name = name;
 
         // get our DXFDatabaseObject member so we have a handle
-        myDXFDatabaseObject = new DXFDatabaseObject();
+        myDXFDatabaseObject = new DXFDatabaseObject(handleAllocator);
     }
 
 
@@ -76,7 +78,7 @@ public class DXFTable extends Vector<DXFDatabaseObject> implements DXFObject {
 
         // print out all of table records
         for (int i = 0; i < this.size(); i++) {
-            result.append(this.elementAt(i).toDXFString());
+            result.append(this.get(i).toDXFString());
         }
 
         result.append("0\nENDTAB\n");
@@ -84,4 +86,52 @@ public class DXFTable extends Vector<DXFDatabaseObject> implements DXFObject {
         return result.toString();
     }
 
+    /**
+     * Streaming counterpart of toDXFString; writes the table and its contained DXF objects to the sink.
+     */
+    public void writeTo(Appendable out) throws IOException {
+        out.append("0\nTABLE\n");
+        out.append("2\n").append(name).append("\n");
+
+        // print out handle
+        myDXFDatabaseObject.writeTo(out);
+
+        // write out subclass marker
+        out.append("100\nAcDbSymbolTable\n");
+
+        // add number of elements in table
+        out.append("70\n").append(Integer.toString(this.size())).append("\n");
+
+        // print out all of table records
+        for (int i = 0; i < this.size(); i++) {
+            this.get(i).writeTo(out);
+        }
+
+        out.append("0\nENDTAB\n");
+    }
+
+    /**
+     * Binary counterpart of writeTo.
+     */
+    public void writeBinary(DXFBinaryWriter out) throws IOException {
+        out.writeString(0, "TABLE");
+        out.writeString(2, name);
+
+        // print out handle
+        myDXFDatabaseObject.writeBinary(out);
+
+        // write out subclass marker
+        out.writeString(100, "AcDbSymbolTable");
+
+        // add number of elements in table
+        out.writeInteger(70, this.size());
+
+        // print out all of table records
+        for (int i = 0; i < this.size(); i++) {
+            this.get(i).writeBinary(out);
+        }
+
+        out.writeString(0, "ENDTAB");
+    }
+
 }
\ No newline at end of file
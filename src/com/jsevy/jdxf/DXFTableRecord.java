@@ -33,6 +33,10 @@ package com.jsevy.jdxf;
  */
 public class DXFTableRecord extends DXFDatabaseObject {
 
+    public DXFTableRecord(DXFHandleAllocator handleAllocator) {
+        super(handleAllocator);
+    }
+
     /**
      * Implementation of DXFObject interface method; just writes out subclass marker and superclass info.
      */
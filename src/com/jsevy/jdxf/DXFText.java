@@ -36,7 +36,8 @@ import java.awt.*;
 public class DXFText extends DXFEntity {
     private RealPoint basePoint;
     private String text;
-    private Color color;
+    // index in the DXF color table, resolved once when the entity is created
+    private int colorIndex;
     private double rotationAngle;
     private double obliqueAngle;
     private DXFStyle style;
@@ -86,7 +87,7 @@ public class DXFText extends DXFEntity {
      */
     public DXFText(String text, RealPoint basePoint, double capHeight, double rotationAngle, double obliqueAngle, DXFStyle style, DXFGraphics graphics) {
         // assign the layer to DXFEntity
-        super(graphics.getLayer());
+        super(graphics.getLayer(), graphics.getHandleAllocator());
 
         this.text = text;
         this.basePoint = new RealPoint(basePoint);
@@ -96,7 +97,7 @@ public class DXFText extends DXFEntity {
         this.style = style;
         graphics.getFont();
         graphics.getFontMetrics();
-        this.color = graphics.getColor();
+        this.colorIndex = DXFColor.getClosestDXFColor(graphics.getColor().getRGB());
 
     }
 
@@ -139,7 +140,7 @@ public class DXFText extends DXFEntity {
         result.append("51\n" + obliqueAngle + "\n");
 
         // add color number
-        result.append("62\n" + DXFColor.getClosestDXFColor(color.getRGB()) + "\n");
+        result.append("62\n" + colorIndex + "\n");
 
         // print out subclass marker again... why? To make AutoCAD happy... grr...
         result.append("100\nAcDbText\n");
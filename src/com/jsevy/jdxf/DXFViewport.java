@@ -41,10 +41,11 @@ public class DXFViewport extends DXFTableRecord {
      * Create a VPORT table record object with specified name.
      *
      * @param name          name of table record
-     * @param viewportScale scale of viewport - number of drawing units the viewport spans
+     * @param viewportScale   scale of viewport - number of drawing units the viewport spans
+     * @param handleAllocator Handle allocator of the owning document
      */
-    public DXFViewport(String name, double viewportScale) {
-        this(name, viewportScale / 2, viewportScale / 2, viewportScale);
+    public DXFViewport(String name, double viewportScale, DXFHandleAllocator handleAllocator) {
+        this(name, viewportScale / 2, viewportScale / 2, viewportScale, handleAllocator);
     }
 
 
@@ -54,10 +55,13 @@ public class DXFViewport extends DXFTableRecord {
      * @param name          name of table record
      * @param centerX       Location of x coordinate of the viewing center of the viewport
      * @param centerY       Location of y coordinate of the viewing center of the viewport
-     * @param viewportScale scale of viewport - number of drawing units the viewport spans
+     * @param viewportScale   scale of viewport - number of drawing units the viewport spans
+     * @param handleAllocator Handle allocator of the owning document
      */
     public DXFViewport(String name, double centerX, double centerY,
-                       double viewportScale) {
+                       double viewportScale, DXFHandleAllocator handleAllocator) {
+        super(handleAllocator);
+
         this.name = name;
         this.viewportCenter = new RealPoint(centerX, centerY, 0);
         this.viewportScale = viewportScale;
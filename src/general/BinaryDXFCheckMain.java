@@ -0,0 +1,186 @@
+package general;
+
+import com.jsevy.jdxf.DXFBinaryWriter;
+import com.jsevy.jdxf.DXFDocument;
+import json.Bin;
+import json.Instance;
+import json.Item;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes the DXF of every item and bin of an instances folder both as text (DXFDocument.writeTo) and as binary DXF
+ * (DXFDocument.writeBinaryTo), reads the binary files back and checks they hold the same groups as the text: the same
+ * group codes, the same strings and the same numbers (doubles compared exactly). Reports the total size and the
+ * write time of both forms.
+ * <p>
+ * Usage: BinaryDXFCheckMain instancesFolder [repetitions]
+ */
+public class BinaryDXFCheckMain {
+    public static void main(String[] args) throws Exception {
+        File instancesFolder = new File(args[0]);
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        List<DXFDocument> documents = new ArrayList<>();
+        for (ConvertAllMain.Job job : ConvertAllMain.discoverJobs(instancesFolder)) {
+            Instance instance = job.parser.parse(job.input);
+            for (Item item : instance.items) {
+                documents.add(item.generateDXF());
+            }
+            if (instance.bins != null) {
+                for (Bin bin : instance.bins) {
+                    documents.add(bin.generateDXF());
+                }
+            }
+        }
+
+        long textBytes = 0;
+        long binaryBytes = 0;
+        int mismatches = 0;
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        for (int i = 0; i < documents.size(); i++) {
+            text.reset();
+            binary.reset();
+            documents.get(i).writeTo(text);
+            documents.get(i).writeBinaryTo(binary);
+            textBytes += text.size();
+            binaryBytes += binary.size();
+
+            List<String> textGroups = readTextGroups(text.toString());
+            List<String> binaryGroups = readBinaryGroups(binary.toByteArray());
+            if (!textGroups.equals(binaryGroups)) {
+                mismatches++;
+                if (mismatches <= 5) {
+                    System.out.println("document " + i + ": " + firstDifference(textGroups, binaryGroups));
+                }
+            }
+        }
+        System.out.printf("%d documents, %d mismatches%ntext: %d KiB, binary: %d KiB (%.1f%%)%n", documents.size(),
+                mismatches, textBytes / 1024, binaryBytes / 1024, 100.0 * binaryBytes / textBytes);
+
+        for (int rep = 0; rep < repetitions; rep++) {
+            long start = System.nanoTime();
+            for (DXFDocument document : documents) {
+                text.reset();
+                document.writeTo(text);
+            }
+            long textTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (DXFDocument document : documents) {
+                binary.reset();
+                document.writeBinaryTo(binary);
+            }
+            long binaryTime = System.nanoTime() - start;
+            System.out.println("text: " + textTime / 1_000_000 + " ms\tbinary: " + binaryTime / 1_000_000 + " ms");
+        }
+        if (mismatches > 0) {
+            System.exit(1);
+        }
+    }
+
+    static String firstDifference(List<String> expected, List<String> actual) {
+        for (int i = 0; i < Math.min(expected.size(), actual.size()); i++) {
+            if (!expected.get(i).equals(actual.get(i))) {
+                return "group " + i + ": text " + expected.get(i) + ", binary " + actual.get(i);
+            }
+        }
+        return "text has " + expected.size() + " groups, binary " + actual.size();
+    }
+
+    //each group as "code=value", numbers in their canonical form
+    static List<String> readTextGroups(String text) {
+        String[] lines = text.split("\n", -1);
+        List<String> groups = new ArrayList<>();
+        for (int i = 0; i + 1 < lines.length; i += 2) {
+            int code = Integer.parseInt(lines[i].trim());
+            String value = lines[i + 1];
+            switch (DXFBinaryWriter.valueType(code)) {
+                case DOUBLE:
+                    value = Double.toString(Double.parseDouble(value.trim()));
+                    break;
+                case INT16:
+                case INT32:
+                case INT64:
+                case BOOLEAN:
+                    value = Long.toString(Long.parseLong(value.trim()));
+                    break;
+                default:
+                    break;
+            }
+            groups.add(code + "=" + value);
+        }
+        return groups;
+    }
+
+    static List<String> readBinaryGroups(byte[] bytes) throws IOException {
+        if (bytes.length < DXFBinaryWriter.SENTINEL.length
+                || !Arrays.equals(Arrays.copyOf(bytes, DXFBinaryWriter.SENTINEL.length), DXFBinaryWriter.SENTINEL)) {
+            throw new IOException("Missing binary DXF sentinel");
+        }
+        List<String> groups = new ArrayList<>();
+        int position = DXFBinaryWriter.SENTINEL.length;
+        while (position < bytes.length) {
+            int code = (int) readLong(bytes, position, 2);
+            position += 2;
+            String value;
+            switch (DXFBinaryWriter.valueType(code)) {
+                case DOUBLE:
+                    value = Double.toString(Double.longBitsToDouble(readLong(bytes, position, 8)));
+                    position += 8;
+                    break;
+                case INT16:
+                    value = Long.toString((short) readLong(bytes, position, 2));
+                    position += 2;
+                    break;
+                case INT32:
+                    value = Long.toString((int) readLong(bytes, position, 4));
+                    position += 4;
+                    break;
+                case INT64:
+                    value = Long.toString(readLong(bytes, position, 8));
+                    position += 8;
+                    break;
+                case BOOLEAN:
+                    value = Long.toString(bytes[position]);
+                    position += 1;
+                    break;
+                case BINARY:
+                    int length = bytes[position] & 0xff;
+                    StringBuilder hex = new StringBuilder();
+                    for (int i = 0; i < length; i++) {
+                        hex.append(String.format("%02X", bytes[position + 1 + i]));
+                    }
+                    value = hex.toString();
+                    position += 1 + length;
+                    break;
+                default:
+                    int end = position;
+                    while (bytes[end] != 0) {
+                        end++;
+                    }
+                    value = new String(bytes, position, end - position, Charset.defaultCharset());
+                    position = end + 1;
+                    break;
+            }
+            groups.add(code + "=" + value);
+        }
+        return groups;
+    }
+
+    //little-endian
+    static long readLong(byte[] bytes, int position, int n) {
+        long value = 0;
+        for (int i = n - 1; i >= 0; i--) {
+            value = (value << 8) | (bytes[position + i] & 0xff);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,97 @@
+package general;
+
+import json.Instance;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares a DXF file per item and bin with a single DXF per instance (OutputSettings.combinedDxf, with and without
+ * previews) by writing every instance of an instances folder the way the *Main classes do, to an output folder and a
+ * zip archive in a temporary folder. Reports the number of files, their size, the size of the zip archives and the
+ * time to write them.
+ * <p>
+ * Usage: CombinedDXFBenchmarkMain instancesFolder [repetitions]
+ */
+public class CombinedDXFBenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        File instancesFolder = new File(args[0]);
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        //the parsers report their progress on System.out
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        List<Instance> instances = new ArrayList<>();
+        try {
+            for (ConvertAllMain.Job job : ConvertAllMain.discoverJobs(instancesFolder)) {
+                instances.add(job.parser.parse(job.input));
+            }
+        } finally {
+            System.setOut(out);
+        }
+
+        String[] modes = {"file per item", "combined", "combined with previews"};
+        File temporary = Files.createTempDirectory("combined-dxf").toFile();
+        try {
+            for (int rep = 0; rep < repetitions; rep++) {
+                StringBuilder line = new StringBuilder();
+                for (int mode = 0; mode < modes.length; mode++) {
+                    OutputSettings settings = new OutputSettings();
+                    settings.combinedDxf = mode > 0;
+                    settings.dxfPreviews = mode > 1;
+                    File folder = new File(temporary, "mode" + mode);
+                    delete(folder);
+                    folder.mkdirs();
+
+                    long start = System.nanoTime();
+                    for (int i = 0; i < instances.size(); i++) {
+                        Util.writeConvertedInstance(instances.get(i), new File(folder, "instance" + i), settings);
+                    }
+                    long time = System.nanoTime() - start;
+
+                    if (rep == 0) {
+                        long[] files = new long[2];
+                        long zipBytes = 0;
+                        for (int i = 0; i < instances.size(); i++) {
+                            count(new File(folder, "instance" + i), files);
+                            zipBytes += new File(folder, "instance" + i + ".zip").length();
+                        }
+                        System.out.println(modes[mode] + ": " + files[0] + " files, " + files[1] / 1024 + " KiB, zip "
+                                + zipBytes / 1024 + " KiB");
+                    }
+                    line.append(modes[mode]).append(": ").append(time / 1_000_000).append(" ms\t");
+                }
+                System.out.println(line.toString().trim());
+            }
+        } finally {
+            delete(temporary);
+        }
+    }
+
+    //{number of files, bytes}
+    static void count(File file, long[] files) {
+        if (file.isDirectory()) {
+            for (File child : file.listFiles()) {
+                count(child, files);
+            }
+        } else {
+            files[0]++;
+            files[1] += file.length();
+        }
+    }
+
+    static void delete(File file) throws IOException {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        Files.deleteIfExists(file.toPath());
+    }
+}
@@ -0,0 +1,156 @@
+package general;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Record of one conversion, written next to its output folder: the digests of the input files, the converter
+ * settings and the digests of the files that were produced. A later conversion with the same inputs and settings
+ * can be skipped as long as the recorded outputs are still in place.
+ */
+public class ConversionManifest {
+    //bump whenever the converter produces different output for the same inputs and settings; changes to the DXF
+    //output bump DXFCache.FORMAT_VERSION instead, which is recorded with the settings
+    static final int CONVERTER_VERSION = 2;
+
+    @SerializedName("converter_version")
+    public int converterVersion;
+    //path relative to the input (file or folder) -> SHA-256
+    @SerializedName("inputs")
+    public TreeMap<String, String> inputs;
+    @SerializedName("settings")
+    public TreeMap<String, String> settings;
+    //path relative to the parent of the output folder -> SHA-256
+    @SerializedName("outputs")
+    public TreeMap<String, String> outputs = new TreeMap<>();
+
+    public ConversionManifest(File input, Map<String, String> settings) throws IOException {
+        this.converterVersion = CONVERTER_VERSION;
+        this.inputs = new TreeMap<>();
+        digestFiles(input, input.isDirectory() ? "" : input.getName(), this.inputs);
+        this.settings = new TreeMap<>(settings);
+        //the DXF files are written in this format whatever the settings, a new format makes every output stale
+        this.settings.put("dxf_format_version", String.valueOf(DXFCache.FORMAT_VERSION));
+    }
+
+    public static File manifestFile(File outputFolder) {
+        return new File(outputFolder.getAbsolutePath() + ".manifest.json");
+    }
+
+    /**
+     * @return the manifest written next to outputFolder, or null if there is none or it can't be read
+     */
+    public static ConversionManifest read(File outputFolder) {
+        File file = manifestFile(outputFolder);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            BufferedReader br = new BufferedReader(new FileReader(file));
+            ConversionManifest manifest = Util.gson.fromJson(br, ConversionManifest.class);
+            br.close();
+            return manifest;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Records the digests of the output folder and the given sibling files (e.g. the zip archive) and writes the
+     * manifest next to the output folder.
+     */
+    public void write(File outputFolder, File... siblings) throws IOException {
+        outputs.clear();
+        digestFiles(outputFolder, outputFolder.getName(), outputs);
+        for (File sibling : siblings) {
+            digestFiles(sibling, sibling.getName(), outputs);
+        }
+        BufferedWriter bw = new BufferedWriter(new FileWriter(manifestFile(outputFolder)));
+        Util.gson.toJson(this, bw);
+        bw.close();
+    }
+
+    /**
+     * Compares this manifest, describing the conversion about to be run, with the one of the previous conversion.
+     *
+     * @return why the output has to be rebuilt, or null if it is up to date
+     */
+    public String staleReason(ConversionManifest previous, File outputFolder) throws IOException {
+        if (previous == null) {
+            return "no manifest";
+        }
+        if (previous.converterVersion != converterVersion) {
+            return "converter version changed";
+        }
+        if (!Objects.equals(previous.inputs, inputs)) {
+            return "inputs changed";
+        }
+        if (!Objects.equals(previous.settings, settings)) {
+            return "settings changed";
+        }
+        if (previous.outputs == null || previous.outputs.isEmpty()) {
+            return "no outputs recorded";
+        }
+        File parent = outputFolder.getAbsoluteFile().getParentFile();
+        for (Map.Entry<String, String> output : previous.outputs.entrySet()) {
+            File file = new File(parent, output.getKey());
+            if (!file.isFile()) {
+                return "missing " + output.getKey();
+            }
+            if (!digest(file).equals(output.getValue())) {
+                return "modified " + output.getKey();
+            }
+        }
+        return null;
+    }
+
+    private static void digestFiles(File file, String path, Map<String, String> digests) throws IOException {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            Arrays.sort(children);
+            for (File child : children) {
+                digestFiles(child, path.isEmpty() ? child.getName() : path + "/" + child.getName(), digests);
+            }
+        } else if (file.isFile()) {
+            digests.put(path, digest(file));
+        }
+    }
+
+    static String digest(File file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            InputStream is = new FileInputStream(file);
+            try {
+                byte[] buffer = new byte[1 << 16];
+                int length;
+                while ((length = is.read(buffer)) >= 0) {
+                    digest.update(buffer, 0, length);
+                }
+            } finally {
+                is.close();
+            }
+
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
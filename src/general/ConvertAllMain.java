@@ -0,0 +1,395 @@
+package general;
+
+import albano.AlbanoParser;
+import baldacci.BaldacciMain;
+import baldacci.BaldacciParser;
+import blaz.BlazParser;
+import dagli.DagliParser;
+import fu.FuParser;
+import jakobs.JakobsParser;
+import json.Instance;
+import mao.MaoParser;
+import marques.MarquesParser;
+import shapes.ShapesParser;
+import shirts.ShirtsParser;
+import swim.SwimParser;
+import trousers.TrousersParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Converts every known dataset found in an instances folder in one JVM, running the conversions concurrently
+ * on a bounded thread pool. Each conversion writes exactly what the corresponding *Main class would.
+ * <p>
+ * Usage: ConvertAllMain instancesFolder [--threads n] [--dxf-threads n] [--continue-on-error] [--compact]
+ * [--binary-dxf | --minimal-dxf] [--combined-dxf [--dxf-previews]] [--dxf-cache folder [--dxf-cache-size megabytes]] [--zip-level 0-9] [--zip-stored] [--zip-only] [--force] [--dry-run]
+ * <p>
+ * Every conversion writes a ConversionManifest next to its output folder, instances whose inputs, settings and
+ * outputs match their manifest are skipped. --force converts everything regardless, --dry-run only lists what would
+ * be converted and why.
+ * <p>
+ * --dxf-threads generates the DXF files of each instance concurrently on a shared pool of n threads, the files are
+ * the same as without it. --compact writes the instance json without indentation and line breaks. --dxf-cache reuses
+ * the DXF files generated by earlier runs for unchanged items and bins, the cache is limited to 512 MB unless
+ * --dxf-cache-size is given. --binary-dxf writes the DXF files in binary DXF rather than text.
+ * --minimal-dxf writes only the ENTITIES section of the DXF files, which is enough for most DXF readers but not for
+ * AutoCAD. --combined-dxf writes one DXF per instance, with a block per item and bin that the instance json refers
+ * to by name, instead of a file per item and bin; --dxf-previews also inserts all blocks in it, laid out on a grid.
+ * --zip-level sets the deflate level of the zip archives, --zip-stored stores their entries uncompressed and
+ * --zip-only writes the zip archives without the output folders.
+ */
+public class ConvertAllMain {
+
+    interface Parser {
+        Instance parse(File input) throws Exception;
+    }
+
+    //input file of the datasets that have one instance per .xml file, e.g. shapes0.xml and shapes1.xml
+    static final String VARIANTS = "*.xml";
+
+    //dataset folder name -> input file within that folder (null for one instance per subfolder) and the parser for it
+    static final Map<String, String> INPUT_FILES = new LinkedHashMap<>();
+    static final Map<String, Parser> PARSERS = new LinkedHashMap<>();
+    //converter settings that affect the output, recorded in the ConversionManifest
+    static final Map<String, Map<String, String>> SETTINGS = new LinkedHashMap<>();
+
+    static {
+        register("albano", "albano.xml", AlbanoParser::parseInstance,
+                esicupSettings(AlbanoParser.stripHeightMargin));
+        register("blaz", "blaz.xml", BlazParser::parseInstance,
+                esicupSettings(BlazParser.stripHeightMargin));
+        register("dagli", "dagli.xml", DagliParser::parseInstance,
+                esicupSettings(DagliParser.stripHeightMargin));
+        register("fu", "fu.xml", FuParser::parseInstance,
+                esicupSettings(FuParser.stripHeightMargin));
+        register("jakobs", VARIANTS, JakobsParser::parseInstance,
+                esicupSettings(JakobsParser.stripHeightMargin));
+        register("mao", "mao.xml", MaoParser::parseInstance,
+                esicupSettings(MaoParser.stripHeightMargin));
+        register("marques", "marques.xml", MarquesParser::parseInstance,
+                esicupSettings(MarquesParser.stripHeightMargin));
+        register("shapes", VARIANTS, ShapesParser::parseInstance,
+                esicupSettings(ShapesParser.stripHeightMargin));
+        register("shirts", "shirts.txt", ShirtsParser::parseInstance,
+                stripSettings(ShirtsParser.stripHeight, ShirtsParser.allowedOrientations));
+        register("swim", "swim.txt", SwimParser::parseInstance,
+                stripSettings(SwimParser.stripHeight, SwimParser.allowedOrientations));
+        register("trousers", "trousers.xml", TrousersParser::parseInstance,
+                esicupSettings(TrousersParser.stripHeightMargin));
+        //baldacci has one sub-instance per folder, the folder itself is the input
+        Map<String, String> baldacciSettings = new LinkedHashMap<>();
+        baldacciSettings.put("clean_shapes", String.valueOf(BaldacciMain.CLEAN_SHAPES));
+        baldacciSettings.put("merge_congruent_items", String.valueOf(BaldacciMain.MERGE_CONGRUENT_ITEMS));
+        baldacciSettings.put("max_distance", String.valueOf(ShapeCleaner.MAX_DISTANCE));
+        register("baldacci", null, BaldacciParser::parseInstance, baldacciSettings);
+    }
+
+    static void register(String dataset, String inputFile, Parser parser, Map<String, String> settings) {
+        INPUT_FILES.put(dataset, inputFile);
+        PARSERS.put(dataset, parser);
+        SETTINGS.put(dataset, settings);
+    }
+
+    //the orientations and the board come from the input file itself
+    static Map<String, String> esicupSettings(double stripHeightMargin) {
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("strip_height_margin", String.valueOf(stripHeightMargin));
+        return settings;
+    }
+
+    static Map<String, String> stripSettings(Double stripHeight, List<Double> allowedOrientations) {
+        Map<String, String> settings = new LinkedHashMap<>();
+        settings.put("strip_height", String.valueOf(stripHeight));
+        settings.put("allowed_orientations", String.valueOf(allowedOrientations));
+        return settings;
+    }
+
+    public static void main(String[] args) throws Exception {
+        File instancesFolder = new File(args[0]);
+        int nThreads = Runtime.getRuntime().availableProcessors();
+        int nDXFThreads = 0;
+        boolean continueOnError = false;
+        OutputSettings settings = new OutputSettings();
+        File dxfCacheFolder = null;
+        long dxfCacheSize = 512;
+        boolean force = false;
+        boolean dryRun = false;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads":
+                    nThreads = Integer.parseInt(args[++i]);
+                    break;
+                case "--dxf-threads":
+                    nDXFThreads = Integer.parseInt(args[++i]);
+                    break;
+                case "--continue-on-error":
+                    continueOnError = true;
+                    break;
+                case "--compact":
+                    settings.compactJson = true;
+                    break;
+                case "--binary-dxf":
+                    settings.binaryDxf = true;
+                    break;
+                case "--minimal-dxf":
+                    settings.minimalDxf = true;
+                    break;
+                case "--combined-dxf":
+                    settings.combinedDxf = true;
+                    break;
+                case "--dxf-previews":
+                    settings.dxfPreviews = true;
+                    break;
+                case "--dxf-cache":
+                    dxfCacheFolder = new File(args[++i]);
+                    break;
+                case "--dxf-cache-size":
+                    dxfCacheSize = Long.parseLong(args[++i]);
+                    break;
+                case "--zip-level":
+                    settings.zipLevel = Integer.parseInt(args[++i]);
+                    break;
+                case "--zip-stored":
+                    settings.zipStored = true;
+                    break;
+                case "--zip-only":
+                    settings.zipOnly = true;
+                    break;
+                case "--force":
+                    force = true;
+                    break;
+                case "--dry-run":
+                    dryRun = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        if (settings.binaryDxf && settings.minimalDxf) {
+            throw new IllegalArgumentException("--binary-dxf and --minimal-dxf can't be combined");
+        }
+        if (settings.combinedDxf && settings.minimalDxf) {
+            throw new IllegalArgumentException("--combined-dxf needs blocks, which --minimal-dxf doesn't write");
+        }
+        if (settings.dxfPreviews && !settings.combinedDxf) {
+            throw new IllegalArgumentException("--dxf-previews only applies to --combined-dxf");
+        }
+        if (dxfCacheFolder != null) {
+            settings.dxfCache = new DXFCache(dxfCacheFolder, dxfCacheSize * 1024 * 1024);
+        }
+
+        List<Job> jobs = discoverJobs(instancesFolder);
+        for (Job job : jobs) {
+            job.settings = settings;
+            job.force = force;
+        }
+
+        if (dryRun) {
+            for (Job job : jobs) {
+                String reason = force ? "forced" : job.staleReason();
+                System.out.println("\t" + job.name + ": " + (reason == null ? "up to date" : "would convert, " + reason));
+            }
+            return;
+        }
+
+        System.out.println("Converting " + jobs.size() + " instances on " + nThreads + " threads");
+
+        if (nDXFThreads > 0) {
+            settings.dxfExecutor = Executors.newFixedThreadPool(nDXFThreads);
+        }
+        List<Job> failed;
+        try {
+            failed = runJobs(jobs, nThreads, continueOnError);
+        } finally {
+            if (settings.dxfExecutor != null) {
+                settings.dxfExecutor.shutdownNow();
+            }
+        }
+
+        for (Job job : jobs) {
+            if (job.upToDate) {
+                System.out.println("\t" + job.name + ": up to date");
+            } else if (job.timeMs >= 0) {
+                System.out.println("\t" + job.name + ": " + job.timeMs + " ms");
+            }
+        }
+        if (settings.dxfCache != null) {
+            System.out.println(settings.dxfCache.getStatistics());
+        }
+        if (!failed.isEmpty()) {
+            for (Job job : failed) {
+                System.err.println("Failed to convert " + job.name + ": " + job.error);
+            }
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Lists a conversion job for every known dataset present in the instances folder, with a job per Baldacci test
+     * folder and per variant of the datasets that have several (shapes0.xml and shapes1.xml).
+     */
+    static List<Job> discoverJobs(File instancesFolder) {
+        List<Job> jobs = new ArrayList<>();
+        for (Map.Entry<String, Parser> entry : PARSERS.entrySet()) {
+            String dataset = entry.getKey();
+            File parentFolder = new File(instancesFolder, dataset);
+            if (!parentFolder.isDirectory()) {
+                continue;
+            }
+            File outputFolder = new File(parentFolder.getAbsolutePath() + "_converted");
+            String inputFile = INPUT_FILES.get(dataset);
+            if (inputFile == null) {
+                File[] folders = parentFolder.listFiles(File::isDirectory);
+                for (File folder : folders) {
+                    jobs.add(new Job(dataset + "/" + folder.getName(), entry.getValue(), SETTINGS.get(dataset), folder,
+                            new File(outputFolder, folder.getName()), outputFolder));
+                }
+            } else if (inputFile.equals(VARIANTS)) {
+                List<File> inputs;
+                try {
+                    inputs = EsicupXmlParser.variantFiles(parentFolder);
+                } catch (IOException e) {
+                    System.out.println("Skipping " + dataset + ": " + e.getMessage());
+                    continue;
+                }
+                for (File input : inputs) {
+                    String variant = EsicupXmlParser.variantName(input);
+                    jobs.add(new Job(dataset + "/" + variant, entry.getValue(), SETTINGS.get(dataset), input,
+                            new File(outputFolder, variant), outputFolder));
+                }
+            } else {
+                File input = new File(parentFolder, inputFile);
+                if (!input.exists()) {
+                    System.out.println("Skipping " + dataset + ": " + input.getName() + " not found");
+                    continue;
+                }
+                jobs.add(new Job(dataset, entry.getValue(), SETTINGS.get(dataset), input, outputFolder, null));
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Runs the jobs on a fixed size pool. When continueOnError is false, the first failure cancels all remaining jobs.
+     *
+     * @return the jobs that failed
+     */
+    static List<Job> runJobs(List<Job> jobs, int nThreads, boolean continueOnError) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        CompletionService<Job> completionService = new ExecutorCompletionService<>(executor);
+        for (Job job : jobs) {
+            completionService.submit(job, job);
+        }
+
+        List<Job> failed = new ArrayList<>();
+        try {
+            for (int i = 0; i < jobs.size(); i++) {
+                Job job = completionService.take().get();
+                if (job.error != null) {
+                    failed.add(job);
+                    if (!continueOnError) {
+                        executor.shutdownNow();
+                        break;
+                    }
+                }
+            }
+        } catch (ExecutionException e) {
+            //jobs catch their own exceptions
+            throw new IllegalStateException(e);
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.HOURS);
+        }
+        return failed;
+    }
+
+    /**
+     * @return the zip archive
+     */
+    static File convert(Instance instance, File outputFolder, OutputSettings settings) throws IOException {
+        if (!settings.zipOnly) {
+            outputFolder.mkdir();
+        }
+        return Util.writeConvertedInstance(instance, outputFolder, settings);
+    }
+
+    static class Job implements Runnable {
+        final String name;
+        final Parser parser;
+        final Map<String, String> parserSettings;
+        final File input;
+        final File outputFolder;
+        //shared parent of outputFolder that needs to exist first, may be null
+        final File parentOutputFolder;
+        OutputSettings settings = new OutputSettings();
+        //convert even if the manifest says the output is up to date
+        boolean force = false;
+
+        long timeMs = -1;
+        boolean upToDate = false;
+        Exception error = null;
+
+        Job(String name, Parser parser, Map<String, String> parserSettings, File input, File outputFolder,
+            File parentOutputFolder) {
+            this.name = name;
+            this.parser = parser;
+            this.parserSettings = parserSettings;
+            this.input = input;
+            this.outputFolder = outputFolder;
+            this.parentOutputFolder = parentOutputFolder;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            try {
+                ConversionManifest manifest = new ConversionManifest(input, allSettings());
+                if (!force && manifest.staleReason(ConversionManifest.read(outputFolder), outputFolder) == null) {
+                    upToDate = true;
+                    return;
+                }
+                if (parentOutputFolder != null) {
+                    parentOutputFolder.mkdirs();
+                }
+                Instance instance = parser.parse(input);
+                File zipFile = convert(instance, outputFolder, settings);
+                manifest.write(outputFolder, zipFile);
+                timeMs = (System.nanoTime() - start) / 1_000_000;
+            } catch (Exception e) {
+                e.printStackTrace();
+                error = e;
+            }
+        }
+
+        /**
+         * @return why this instance needs to be converted, or null if its output is up to date
+         */
+        String staleReason() {
+            try {
+                return new ConversionManifest(input, allSettings()).staleReason(ConversionManifest.read(outputFolder), outputFolder);
+            } catch (IOException e) {
+                return e.toString();
+            }
+        }
+
+        private Map<String, String> allSettings() {
+            Map<String, String> allSettings = new LinkedHashMap<>(parserSettings);
+            allSettings.put("compact_json", String.valueOf(settings.compactJson));
+            allSettings.put("binary_dxf", String.valueOf(settings.binaryDxf));
+            allSettings.put("minimal_dxf", String.valueOf(settings.minimalDxf));
+            allSettings.put("combined_dxf", String.valueOf(settings.combinedDxf));
+            allSettings.put("dxf_previews", String.valueOf(settings.dxfPreviews));
+            allSettings.put("zip_level", String.valueOf(settings.zipLevel));
+            allSettings.put("zip_stored", String.valueOf(settings.zipStored));
+            allSettings.put("zip_only", String.valueOf(settings.zipOnly));
+            return allSettings;
+        }
+    }
+}
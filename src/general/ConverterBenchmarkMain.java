@@ -0,0 +1,353 @@
+package general;
+
+import baldacci.BaldacciParser;
+import json.Bin;
+import json.Instance;
+import json.Item;
+import json.Point;
+import json.Ring;
+import json.Shape;
+import json.Zone;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Measures the time and the allocations of the converter stages on the bundled instances: parsing the Baldacci
+ * folders and the ESICUP XML files, ShapeCleaner.clean on the raw Baldacci shapes, cleanSharedVertices on the
+ * Baldacci zones, Util.gson.toJson of every instance and DXFDocument.toDXFString of every item and bin.
+ * <p>
+ * One operation is a pass over all inputs of a stage, always in the same (sorted) order. Each stage is warmed up and
+ * then measured a number of times on the current thread. The time of a stage is the median of those iterations,
+ * its allocations are read from the thread's allocation counter. The results can be written to a baseline file, or
+ * compared with one: stages that got slower or allocate more are reported as regressions and make the exit status 1.
+ * <p>
+ * The time of the short stages easily varies by 20% between runs on a busy machine, so a baseline holds several runs,
+ * each in its own JVM, added one at a time with --append-baseline. A stage regressed when its time exceeds the median
+ * of the recorded runs by more than twice the largest deviation of a recorded run from that median, and at least 5%.
+ * A baseline of fewer than 3 runs says little about the noise, it gets a 50% tolerance. --tolerance overrides both.
+ * The allocations are compared the same way, with a tolerance of at least 2%.
+ * <p>
+ * The same stages can be run under JMH, with -prof gc, from the module in benchmarks/.
+ * <p>
+ * Usage: ConverterBenchmarkMain instancesFolder [--warmup n] [--iterations n] [--baseline file]
+ * [--write-baseline file | --append-baseline file] [--tolerance percent]
+ */
+public class ConverterBenchmarkMain {
+    //allocations hardly vary between runs, so they get a tighter tolerance than the time
+    static final double ALLOCATION_TOLERANCE = 0.02;
+    //for baselines with too few runs to tell the noise, twice the 23% seen between single runs
+    static final double DEFAULT_TOLERANCE = 0.5;
+    static final int MIN_BASELINE_RUNS = 3;
+    //with only a handful of runs the largest deviation may come out tiny
+    static final double MIN_TIME_TOLERANCE = 0.05;
+
+    interface Stage {
+        //returns something derived from the result, so the work can't be optimized away
+        long run() throws Exception;
+    }
+
+    static volatile long blackhole;
+
+    public static void main(String[] args) throws Exception {
+        File instancesFolder = new File(args[0]);
+        int warmup = 5;
+        int iterations = 15;
+        File baselineFile = null;
+        File newBaselineFile = null;
+        boolean append = false;
+        double tolerance = Double.NaN;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                case "--baseline":
+                    baselineFile = new File(args[++i]);
+                    break;
+                case "--write-baseline":
+                    newBaselineFile = new File(args[++i]);
+                    append = false;
+                    break;
+                case "--append-baseline":
+                    newBaselineFile = new File(args[++i]);
+                    append = true;
+                    break;
+                case "--tolerance":
+                    tolerance = Double.parseDouble(args[++i]) / 100;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        //the parsers report their progress on System.out
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        Map<String, Result> results;
+        try {
+            results = run(instancesFolder, warmup, iterations, out);
+        } finally {
+            System.setOut(out);
+        }
+
+        //read first, the baseline may be the file this run is appended to
+        Map<String, List<Result>> baseline = baselineFile == null ? null : readBaseline(baselineFile);
+        if (newBaselineFile != null) {
+            writeBaseline(newBaselineFile, results, append);
+            System.out.println((append ? "Appended to " : "Wrote ") + newBaselineFile.getPath());
+        }
+        if (baseline != null) {
+            int regressions = 0;
+            System.out.println();
+            System.out.printf(Locale.ROOT, "%-24s %12s %12s %12s %6s%n", "compared to baseline", "time", "tolerance",
+                    "allocated", "runs");
+            for (Map.Entry<String, Result> entry : results.entrySet()) {
+                List<Result> runs = baseline.get(entry.getKey());
+                if (runs == null) {
+                    System.out.printf(Locale.ROOT, "%-24s %12s%n", entry.getKey(), "new");
+                    continue;
+                }
+                double[] times = new double[runs.size()];
+                double[] bytes = new double[runs.size()];
+                for (int i = 0; i < runs.size(); i++) {
+                    times[i] = runs.get(i).medianMs;
+                    bytes[i] = runs.get(i).bytesPerOp;
+                }
+                double timeTolerance = !Double.isNaN(tolerance) ? tolerance
+                        : tolerance(times, MIN_TIME_TOLERANCE, DEFAULT_TOLERANCE);
+                double allocationTolerance = tolerance(bytes, ALLOCATION_TOLERANCE, ALLOCATION_TOLERANCE);
+
+                Result result = entry.getValue();
+                double timeChange = result.medianMs / median(times) - 1;
+                double allocationChange = result.bytesPerOp / median(bytes) - 1;
+                boolean regression = timeChange > timeTolerance || allocationChange > allocationTolerance;
+                if (regression) {
+                    regressions++;
+                }
+                System.out.printf(Locale.ROOT, "%-24s %+11.1f%% %11.1f%% %+11.1f%% %6d%s%n", entry.getKey(),
+                        timeChange * 100, timeTolerance * 100, allocationChange * 100, runs.size(),
+                        regression ? "  REGRESSION" : "");
+            }
+            if (regressions > 0) {
+                System.out.println(regressions + " regression(s)");
+                System.exit(1);
+            }
+        }
+    }
+
+    //twice the largest relative deviation of a recorded run from the median of the runs
+    static double tolerance(double[] runs, double minimum, double fewRuns) {
+        if (runs.length < MIN_BASELINE_RUNS) {
+            return fewRuns;
+        }
+        double median = median(runs);
+        double noise = 0;
+        for (double run : runs) {
+            noise = Math.max(noise, Math.abs(run / median - 1));
+        }
+        return Math.max(2 * noise, minimum);
+    }
+
+    static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return (sorted[(sorted.length - 1) / 2] + sorted[sorted.length / 2]) / 2;
+    }
+
+    static Map<String, Result> run(File instancesFolder, int warmup, int iterations, PrintStream out)
+            throws Exception {
+        Map<String, Stage> stages = stages(instancesFolder, out);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        out.printf(Locale.ROOT, "%-24s %12s %10s %10s %14s %12s%n", "stage", "median ms", "min", "max", "KiB/op",
+                "MB/s alloc");
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (Map.Entry<String, Stage> entry : stages.entrySet()) {
+            Stage stage = entry.getValue();
+            for (int i = 0; i < warmup; i++) {
+                blackhole += stage.run();
+            }
+            double[] times = new double[iterations];
+            long allocated = 0;
+            for (int i = 0; i < iterations; i++) {
+                long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+                long start = System.nanoTime();
+                blackhole += stage.run();
+                times[i] = (System.nanoTime() - start) / 1e6;
+                allocated += threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+            }
+            //the median, a few iterations hit by a full GC or another process don't move it
+            Arrays.sort(times);
+            double median = median(times);
+
+            Result result = new Result(median, allocated / iterations);
+            results.put(entry.getKey(), result);
+            out.printf(Locale.ROOT, "%-24s %12.2f %10.2f %10.2f %14d %12.1f%n", entry.getKey(), median, times[0],
+                    times[iterations - 1], result.bytesPerOp / 1024, result.bytesPerOp / 1e6 / (median / 1e3));
+        }
+        return results;
+    }
+
+    /**
+     * Reads the inputs of the bundled instances and returns the stages by name, in the order they are reported.
+     */
+    static Map<String, Stage> stages(File instancesFolder, PrintStream out) throws Exception {
+        //inputs, read once up front
+        File[] baldacciFolders = new File(instancesFolder, "baldacci").listFiles(File::isDirectory);
+        Arrays.sort(baldacciFolders);
+        List<ConvertAllMain.Job> xmlJobs = new ArrayList<>();
+        for (ConvertAllMain.Job job : ConvertAllMain.discoverJobs(instancesFolder)) {
+            if (job.input.getName().endsWith(".xml")) {
+                xmlJobs.add(job);
+            }
+        }
+        List<Instance> instances = new ArrayList<>();
+        for (ConvertAllMain.Job job : ConvertAllMain.discoverJobs(instancesFolder)) {
+            instances.add(job.parser.parse(job.input));
+        }
+        List<Shape> rawShapes = new ArrayList<>();
+        for (File folder : baldacciFolders) {
+            File[] files = folder.listFiles((dir, name) -> name.endsWith(".cmp"));
+            Arrays.sort(files);
+            for (File file : files) {
+                ArrayList<Point> points = ShapeCleanerBenchmarkMain.readOuterPoints(file);
+                points.add(points.get(0));
+                rawShapes.add(new Shape(Ring.of(points)));
+            }
+        }
+        //zone outline and the outline of its item, as the Baldacci parser cleans them
+        List<ArrayList<Point>> zoneOutlines = new ArrayList<>();
+        List<ArrayList<Point>> zoneReferences = new ArrayList<>();
+        for (Instance instance : instances) {
+            for (Item item : instance.items) {
+                if (item.zones != null) {
+                    for (Zone zone : item.zones) {
+                        zoneOutlines.add(zone.shape.outer_points.toPointList());
+                        zoneReferences.add(item.shape.outer_points.toPointList());
+                    }
+                }
+            }
+        }
+        out.println(baldacciFolders.length + " Baldacci folders, " + xmlJobs.size() + " XML files, "
+                + instances.size() + " instances, " + rawShapes.size() + " raw shapes, " + zoneOutlines.size()
+                + " zones");
+
+        Map<String, Stage> stages = new LinkedHashMap<>();
+        stages.put("parse_baldacci", () -> {
+            long h = 0;
+            for (File folder : baldacciFolders) {
+                h += BaldacciParser.parseInstance(folder).items.size();
+            }
+            return h;
+        });
+        stages.put("parse_xml", () -> {
+            long h = 0;
+            for (ConvertAllMain.Job job : xmlJobs) {
+                h += job.parser.parse(job.input).items.size();
+            }
+            return h;
+        });
+        stages.put("clean", () -> {
+            ShapeCleaner cleaner = new ShapeCleaner();
+            long h = 0;
+            for (Shape shape : rawShapes) {
+                h += cleaner.clean(shape, "benchmark").outer_points.size();
+            }
+            return h;
+        });
+        stages.put("clean_shared_vertices", () -> {
+            ShapeCleaner cleaner = new ShapeCleaner();
+            long h = 0;
+            for (int i = 0; i < zoneOutlines.size(); i++) {
+                h += cleaner.cleanSharedVertices(zoneOutlines.get(i), zoneReferences.get(i), "benchmark").size();
+            }
+            return h;
+        });
+        stages.put("gson_to_json", () -> {
+            long h = 0;
+            for (Instance instance : instances) {
+                h += Util.gson.toJson(instance).length();
+            }
+            return h;
+        });
+        stages.put("dxf_to_string", () -> {
+            long h = 0;
+            for (Instance instance : instances) {
+                for (Item item : instance.items) {
+                    h += item.generateDXF().toDXFString().length();
+                }
+                if (instance.bins != null) {
+                    for (Bin bin : instance.bins) {
+                        h += bin.generateDXF().toDXFString().length();
+                    }
+                }
+            }
+            return h;
+        });
+
+        return stages;
+    }
+
+    //one line per stage and run, a stage has as many lines as runs were appended
+    static void writeBaseline(File file, Map<String, Result> results, boolean append) throws IOException {
+        boolean header = !append || !file.exists();
+        BufferedWriter bw = new BufferedWriter(new FileWriter(file, append));
+        try {
+            if (header) {
+                bw.write("#stage\tms_per_op\tbytes_per_op\n");
+            }
+            for (Map.Entry<String, Result> entry : results.entrySet()) {
+                bw.write(String.format(Locale.ROOT, "%s\t%.3f\t%d%n", entry.getKey(), entry.getValue().medianMs,
+                        entry.getValue().bytesPerOp));
+            }
+        } finally {
+            bw.close();
+        }
+    }
+
+    static Map<String, List<Result>> readBaseline(File file) throws IOException {
+        Map<String, List<Result>> baseline = new LinkedHashMap<>();
+        BufferedReader br = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                baseline.computeIfAbsent(fields[0], stage -> new ArrayList<>())
+                        .add(new Result(Double.parseDouble(fields[1]), Long.parseLong(fields[2])));
+            }
+        } finally {
+            br.close();
+        }
+        return baseline;
+    }
+
+    static class Result {
+        final double medianMs;
+        final long bytesPerOp;
+
+        Result(double medianMs, long bytesPerOp) {
+            this.medianMs = medianMs;
+            this.bytesPerOp = bytesPerOp;
+        }
+    }
+}
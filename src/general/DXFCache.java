@@ -0,0 +1,283 @@
+package general;
+
+import com.jsevy.jdxf.DXFEntity;
+import json.Bin;
+import json.Item;
+import json.Ring;
+import json.Shape;
+import json.Zone;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * On-disk cache of generated DXF files, keyed by a hash of everything the DXF is generated from: the shape, the zones,
+ * the quality colors, the precision digits of jdxf and FORMAT_VERSION. Cached files are copied into the output (hard
+ * linked into an output folder where possible), so unchanged items are not rendered again.
+ * <p>
+ * The cache is bounded in size. The least recently used entries are evicted first, recency is kept across runs
+ * in a log of used keys next to the entries, never through the cached files themselves: those are hard linked into
+ * the outputs, touching them would touch the outputs too. The cache can be shared by concurrent conversions, an entry
+ * is not evicted while it is being copied into an output.
+ */
+public class DXFCache {
+    //bump whenever the DXF generated for the same input changes (drawing code, jdxf output, precision...)
+    static final int FORMAT_VERSION = 2;
+
+    private static final String RECENCY_LOG = "recency.log";
+
+    private final File directory;
+    private final long maxBytes;
+    private final Path recencyLog;
+
+    //key -> size of the cached file, in least recently used first order
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+    //key -> number of jobs copying the entry right now, these are skipped by eviction
+    private final Map<String, Integer> pinned = new HashMap<>();
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public DXFCache(File directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.recencyLog = new File(directory, RECENCY_LOG).toPath();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create DXF cache directory " + directory.getAbsolutePath());
+        }
+        //entries missing from the log (older caches) come first, in the order they were written
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".dxf"));
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            String key = file.getName().substring(0, file.getName().length() - ".dxf".length());
+            entries.put(key, file.length());
+            totalBytes += file.length();
+        }
+        if (Files.exists(recencyLog)) {
+            for (String key : Files.readAllLines(recencyLog, StandardCharsets.US_ASCII)) {
+                entries.get(key);
+            }
+        }
+        synchronized (this) {
+            evict();
+            compactRecencyLog();
+        }
+    }
+
+    /**
+     * Writes the content of a DXF file, only called on a miss.
+     */
+    public interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    //the DXF files of the same item in different formats are different entries
+    public static String key(Item item, OutputSettings settings) {
+        return key(formatPrefix(settings) + "item", item.minQuality, item.shape, item.zones);
+    }
+
+    public static String key(Bin bin, OutputSettings settings) {
+        return key(formatPrefix(settings) + "bin", null, bin.shape, bin.zones);
+    }
+
+    private static String formatPrefix(OutputSettings settings) {
+        return (settings.binaryDxf ? "binary_" : "") + (settings.minimalDxf ? "minimal_" : "");
+    }
+
+    /**
+     * Adds the DXF for the given key to the sink under path, generating and caching it on a miss.
+     */
+    public void write(String key, Content content, OutputSink sink, String path) throws IOException {
+        File entry = new File(directory, key + ".dxf");
+        boolean cached;
+        synchronized (this) {
+            cached = entries.get(key) != null;
+            if (cached) {
+                pin(key);
+            }
+        }
+        if (cached) {
+            try {
+                sink.copyFile(path, entry);
+                synchronized (this) {
+                    hits++;
+                    logUse(key);
+                }
+                return;
+            } catch (NoSuchFileException e) {
+                //removed from outside the cache in the mean time
+                synchronized (this) {
+                    Long size = entries.remove(key);
+                    totalBytes -= size == null ? 0 : size;
+                }
+            } finally {
+                synchronized (this) {
+                    unpin(key);
+                }
+            }
+        }
+
+        //the sink copies the temporary file, which eviction never touches, before it becomes the entry
+        File temporary = File.createTempFile(key, ".tmp", directory);
+        long size;
+        try {
+            OutputStream os = new BufferedOutputStream(new FileOutputStream(temporary), 1 << 16);
+            try {
+                content.writeTo(os);
+            } finally {
+                os.close();
+            }
+            size = temporary.length();
+            sink.copyFile(path, temporary);
+            Files.move(temporary.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+
+        synchronized (this) {
+            misses++;
+            Long previousSize = entries.put(key, size);
+            totalBytes += size - (previousSize == null ? 0 : previousSize);
+            logUse(key);
+            evict();
+        }
+    }
+
+    public synchronized boolean contains(String key) {
+        return entries.containsKey(key);
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized String getStatistics() {
+        long lookups = hits + misses;
+        return "DXF cache: " + hits + " hits, " + misses + " misses ("
+                + (lookups == 0 ? 0 : 100 * hits / lookups) + "% hit rate), " + evictions + " evictions, "
+                + entries.size() + " entries, " + totalBytes / 1024 + " KiB of " + maxBytes / 1024 + " KiB";
+    }
+
+    private void pin(String key) {
+        pinned.merge(key, 1, Integer::sum);
+    }
+
+    private void unpin(String key) {
+        pinned.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+        //an eviction skipped while the entry was pinned
+        evict();
+    }
+
+    //appends the key to the recency log, the last line of a key is its last use
+    private void logUse(String key) throws IOException {
+        Files.write(recencyLog, (key + "\n").getBytes(StandardCharsets.US_ASCII),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    //rewrites the recency log with one line per entry, least recently used first
+    private void compactRecencyLog() throws IOException {
+        Path temporary = Files.createTempFile(directory.toPath(), RECENCY_LOG, ".tmp");
+        try {
+            Files.write(temporary, entries.keySet(), StandardCharsets.US_ASCII);
+            Files.move(temporary, recencyLog, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            if (pinned.containsKey(eldest.getKey())) {
+                continue;
+            }
+            new File(directory, eldest.getKey() + ".dxf").delete();
+            totalBytes -= eldest.getValue();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private static String key(String kind, Integer quality, Shape shape, List<Zone> zones) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            DataOutputStream out = new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest));
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(DXFEntity.getPrecisionDigits());
+            out.writeUTF(kind);
+            writeQuality(out, quality);
+            writeShape(out, shape);
+            out.writeInt(zones == null ? -1 : zones.size());
+            if (zones != null) {
+                for (Zone zone : zones) {
+                    writeQuality(out, zone.quality);
+                    writeShape(out, zone.shape);
+                }
+            }
+            out.close();
+
+            StringBuilder key = new StringBuilder();
+            for (byte b : digest.digest()) {
+                key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void writeQuality(DataOutputStream out, Integer quality) throws IOException {
+        out.writeBoolean(quality != null);
+        if (quality != null) {
+            out.writeInt(quality);
+            out.writeInt(Util.qualityColorMapper(quality).getRGB());
+        }
+    }
+
+    private static void writeShape(DataOutputStream out, Shape shape) throws IOException {
+        writeRing(out, shape.outer_points);
+        out.writeInt(shape.inner_points.size());
+        for (Ring inner : shape.inner_points) {
+            writeRing(out, inner);
+        }
+    }
+
+    private static void writeRing(DataOutputStream out, Ring ring) throws IOException {
+        out.writeInt(ring.size());
+        for (int i = 0; i < ring.size(); i++) {
+            out.writeDouble(ring.x(i));
+            out.writeDouble(ring.y(i));
+        }
+    }
+}
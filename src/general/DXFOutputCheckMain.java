@@ -0,0 +1,161 @@
+package general;
+
+import com.jsevy.jdxf.DXFDocument;
+import json.Bin;
+import json.Instance;
+import json.Item;
+import json.Ring;
+import json.Shape;
+import json.Zone;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Golden check for the DXF output of every item and bin of every bundled instance:
+ * <ul>
+ * <li>the text written by DXFDocument.writeTo must be identical to DXFDocument.toDXFString()</li>
+ * <li>every polyline coordinate must read exactly as the reference formatting of the shape's coordinate: rounded
+ * half-up to 10 decimals through BigDecimal, then printed with Double.toString, as jdxf originally did. Both writers
+ * share the fast rounding of DXFEntity, so only this comparison checks that rounding itself.</li>
+ * </ul>
+ * Every document is checked as generated and once more drawn scaled by 1/pi.
+ * <p>
+ * Usage: DXFOutputCheckMain instancesFolder
+ */
+public class DXFOutputCheckMain {
+    //jdxf's default, the converters never change it
+    private static final int DIGITS = 10;
+    //the bundled coordinates have few decimals and hardly exercise the rounding, scaled by 1/pi they have digits
+    //well beyond the 10th that round either way
+    private static final double[] SCALES = {1.0, 1.0 / Math.PI};
+
+    public static void main(String[] args) throws Exception {
+        File instancesFolder = new File(args[0]);
+
+        int nDocuments = 0;
+        long nCoordinates = 0;
+        List<String> mismatches = new ArrayList<>();
+        for (ConvertAllMain.Job job : ConvertAllMain.discoverJobs(instancesFolder)) {
+            Instance instance = job.parser.parse(job.input);
+            for (int i = 0; i < instance.items.size(); i++) {
+                Item item = instance.items.get(i);
+                for (double scale : SCALES) {
+                    List<String> expected = new ArrayList<>();
+                    addCoordinates(expected, item.shape, item.zones, scale);
+                    String mismatch = check(generateDXF(item::draw, scale), expected);
+                    if (mismatch != null) {
+                        mismatches.add(job.name + " item " + i + " at scale " + scale + ": " + mismatch);
+                    }
+                    nDocuments++;
+                    nCoordinates += expected.size();
+                }
+            }
+            if (instance.bins != null) {
+                for (int i = 0; i < instance.bins.size(); i++) {
+                    Bin bin = instance.bins.get(i);
+                    for (double scale : SCALES) {
+                        List<String> expected = new ArrayList<>();
+                        addCoordinates(expected, bin.shape, bin.zones, scale);
+                        String mismatch = check(generateDXF(bin::draw, scale), expected);
+                        if (mismatch != null) {
+                            mismatches.add(job.name + " bin " + i + " at scale " + scale + ": " + mismatch);
+                        }
+                        nDocuments++;
+                        nCoordinates += expected.size();
+                    }
+                }
+            }
+        }
+
+        System.out.println("Checked " + nDocuments + " documents and " + nCoordinates + " coordinates, "
+                + mismatches.size() + " mismatches");
+        for (String mismatch : mismatches) {
+            System.err.println("\tMismatch: " + mismatch);
+        }
+        if (!mismatches.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    //returns a description of the first difference, null if the document is as expected
+    static String check(DXFDocument dxf, List<String> expected) throws IOException {
+        StringBuilder streamed = new StringBuilder();
+        dxf.writeTo(streamed);
+        String text = streamed.toString();
+        if (!text.equals(dxf.toDXFString())) {
+            return "writeTo differs from toDXFString";
+        }
+
+        List<String> actual = polylineCoordinates(text);
+        for (int i = 0; i < Math.min(actual.size(), expected.size()); i++) {
+            if (!actual.get(i).equals(expected.get(i))) {
+                return "coordinate " + i + " is " + actual.get(i) + ", expected " + expected.get(i);
+            }
+        }
+        if (actual.size() != expected.size()) {
+            return actual.size() + " coordinates, expected " + expected.size();
+        }
+        return null;
+    }
+
+    //the 10, 20 and 30 values of the LWPOLYLINE entities, in the order they were written
+    static List<String> polylineCoordinates(String text) {
+        String[] lines = text.split("\n");
+        List<String> coordinates = new ArrayList<>();
+        boolean inPolyline = false;
+        for (int i = 0; i + 1 < lines.length; i += 2) {
+            String code = lines[i].trim();
+            if (code.equals("0")) {
+                inPolyline = lines[i + 1].equals("LWPOLYLINE");
+            } else if (inPolyline && (code.equals("10") || code.equals("20") || code.equals("30"))) {
+                coordinates.add(lines[i + 1]);
+            }
+        }
+        return coordinates;
+    }
+
+    //same as Item.generateDXF and Bin.generateDXF for a scale of 1
+    static DXFDocument generateDXF(Consumer<DXFDocument> draw, double scale) {
+        DXFDocument dxfDocument = new DXFDocument();
+        if (scale != 1.0) {
+            dxfDocument.getGraphics().scale(scale, scale);
+        }
+        draw.accept(dxfDocument);
+        return dxfDocument;
+    }
+
+    //mirrors Item.draw and Bin.draw: the shape, then the zones, each ring drawn with y flipped
+    static void addCoordinates(List<String> coordinates, Shape shape, List<Zone> zones, double scale) {
+        addCoordinates(coordinates, shape, scale);
+        if (zones != null) {
+            for (Zone zone : zones) {
+                addCoordinates(coordinates, zone.shape, scale);
+            }
+        }
+    }
+
+    private static void addCoordinates(List<String> coordinates, Shape shape, double scale) {
+        addCoordinates(coordinates, shape.outer_points, scale);
+        for (Ring inner : shape.inner_points) {
+            addCoordinates(coordinates, inner, scale);
+        }
+    }
+
+    private static void addCoordinates(List<String> coordinates, Ring ring, double scale) {
+        for (int i = 0; i < ring.size(); i++) {
+            coordinates.add(reference(ring.x(i) * scale));
+            coordinates.add(reference(-(ring.y(i) * scale)));
+            coordinates.add(reference(0.0));
+        }
+    }
+
+    static String reference(double value) {
+        return Double.toString(new BigDecimal(value).setScale(DIGITS, RoundingMode.HALF_UP).doubleValue());
+    }
+}
@@ -0,0 +1,100 @@
+package general;
+
+import com.jsevy.jdxf.DXFDocument;
+import json.Bin;
+import json.Instance;
+import json.Item;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the full DXF output (all the sections AutoCAD expects) with the minimal one (only the ENTITIES section,
+ * DXFDocument.generateAutoCADSections(false)) on every item and bin of an instances folder: the total size, the
+ * share of the sections around the entities, and the time and allocations of DXFDocument.writeTo.
+ * <p>
+ * Usage: DXFProfileBenchmarkMain instancesFolder [repetitions]
+ */
+public class DXFProfileBenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        File instancesFolder = new File(args[0]);
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        //the parsers report their progress on System.out
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        List<DXFDocument> documents = new ArrayList<>();
+        try {
+            for (ConvertAllMain.Job job : ConvertAllMain.discoverJobs(instancesFolder)) {
+                Instance instance = job.parser.parse(job.input);
+                for (Item item : instance.items) {
+                    documents.add(item.generateDXF());
+                }
+                if (instance.bins != null) {
+                    for (Bin bin : instance.bins) {
+                        documents.add(bin.generateDXF());
+                    }
+                }
+            }
+        } finally {
+            System.setOut(out);
+        }
+
+        long fullBytes = 0;
+        long minimalBytes = 0;
+        long smallFullBytes = 0;
+        long smallMinimalBytes = 0;
+        int small = 0;
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        for (DXFDocument document : documents) {
+            long full = write(document, true, bos);
+            long minimal = write(document, false, bos);
+            fullBytes += full;
+            minimalBytes += minimal;
+            //files with a few polylines, where the sections around the entities weigh the most
+            if (minimal < 2048) {
+                small++;
+                smallFullBytes += full;
+                smallMinimalBytes += minimal;
+            }
+        }
+        System.out.printf("%d documents, full: %d KiB, minimal: %d KiB (%.1f%%)%n", documents.size(), fullBytes / 1024,
+                minimalBytes / 1024, 100.0 * minimalBytes / fullBytes);
+        System.out.printf("%d documents with less than 2 KiB of entities, full: %d KiB, minimal: %d KiB (%.1f%%)%n",
+                small, smallFullBytes / 1024, smallMinimalBytes / 1024, 100.0 * smallMinimalBytes / smallFullBytes);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int rep = 0; rep < repetitions; rep++) {
+            long bytes = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            for (DXFDocument document : documents) {
+                write(document, true, bos);
+            }
+            long fullTime = System.nanoTime() - start;
+            long fullAllocated = threads.getCurrentThreadAllocatedBytes() - bytes;
+
+            bytes = threads.getCurrentThreadAllocatedBytes();
+            start = System.nanoTime();
+            for (DXFDocument document : documents) {
+                write(document, false, bos);
+            }
+            long minimalTime = System.nanoTime() - start;
+            long minimalAllocated = threads.getCurrentThreadAllocatedBytes() - bytes;
+
+            System.out.println("full: " + fullTime / 1_000_000 + " ms, " + fullAllocated / 1024 + " KiB\tminimal: "
+                    + minimalTime / 1_000_000 + " ms, " + minimalAllocated / 1024 + " KiB");
+        }
+    }
+
+    static long write(DXFDocument document, boolean acadSections, ByteArrayOutputStream bos) throws Exception {
+        bos.reset();
+        document.generateAutoCADSections(acadSections);
+        document.writeTo(bos);
+        return bos.size();
+    }
+}
@@ -0,0 +1,94 @@
+package general;
+
+import com.jsevy.jdxf.DXFDocument;
+import json.Instance;
+import json.Item;
+import json.Ring;
+
+import java.awt.geom.Path2D;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares DXFGraphics.draw(Shape) with and without DXFDocument.generatePolylines on the outline of every item of
+ * an instances folder, drawn as a Path2D. The polyline output is checked against drawPolygon of the same vertices,
+ * which it should match byte for byte.
+ * <p>
+ * Usage: DrawShapeBenchmarkMain instancesFolder [repetitions]
+ */
+public class DrawShapeBenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        File instancesFolder = new File(args[0]);
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        List<Ring> rings = new ArrayList<>();
+        for (ConvertAllMain.Job job : ConvertAllMain.discoverJobs(instancesFolder)) {
+            Instance instance = job.parser.parse(job.input);
+            for (Item item : instance.items) {
+                rings.add(item.shape.outer_points);
+                rings.addAll(item.shape.inner_points);
+            }
+        }
+        List<Path2D> paths = new ArrayList<>();
+        for (Ring ring : rings) {
+            paths.add(toPath(ring));
+        }
+
+        long lineBytes = 0;
+        long polylineBytes = 0;
+        int identical = 0;
+        for (int i = 0; i < rings.size(); i++) {
+            lineBytes += draw(paths.get(i), false).length();
+            String polylines = draw(paths.get(i), true);
+            polylineBytes += polylines.length();
+
+            Ring ring = rings.get(i);
+            DXFDocument polygon = new DXFDocument();
+            polygon.getGraphics().drawPolygon(ring.xs(), ring.ys(), ring.isClosed() ? ring.size() - 1 : ring.size());
+            if (polygon.toDXFString().equals(polylines)) {
+                identical++;
+            }
+        }
+        //the part of each file that doesn't depend on the geometry
+        long emptyBytes = (long) new DXFDocument().toDXFString().length() * rings.size();
+        System.out.println(rings.size() + " outlines, lines: " + lineBytes / 1024 + " KiB ("
+                + (lineBytes - emptyBytes) / 1024 + " KiB of entities), polylines: " + polylineBytes / 1024 + " KiB ("
+                + (polylineBytes - emptyBytes) / 1024 + " KiB of entities), identical to drawPolygon: " + identical
+                + "/" + rings.size());
+
+        for (int rep = 0; rep < repetitions; rep++) {
+            long start = System.nanoTime();
+            for (Path2D path : paths) {
+                draw(path, false);
+            }
+            long lineTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (Path2D path : paths) {
+                draw(path, true);
+            }
+            long polylineTime = System.nanoTime() - start;
+
+            System.out.println("lines: " + lineTime / 1_000_000 + " ms\tpolylines: " + polylineTime / 1_000_000 + " ms");
+        }
+    }
+
+    static Path2D toPath(Ring ring) {
+        Path2D.Double path = new Path2D.Double(Path2D.WIND_EVEN_ODD, ring.size());
+        path.moveTo(ring.x(0), ring.y(0));
+        int n = ring.isClosed() ? ring.size() - 1 : ring.size();
+        for (int i = 1; i < n; i++) {
+            path.lineTo(ring.x(i), ring.y(i));
+        }
+        path.closePath();
+        return path;
+    }
+
+    static String draw(Path2D path, boolean usePolylines) {
+        DXFDocument document = new DXFDocument();
+        document.generatePolylines(usePolylines);
+        document.getGraphics().draw(path);
+        return document.toDXFString();
+    }
+}
@@ -0,0 +1,220 @@
+package general;
+
+import json.Instance;
+import json.Item;
+import json.Ring;
+import json.Shape;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming reader for the ESICUP nesting XML format shared by most datasets.
+ * <p>
+ * A single StAX pass collects the pieces of the first lot and of the boards, with their orientations and component
+ * offsets, and the outline of every polygon, indexed by polygon id. The pieces are resolved against that index once
+ * the whole document has been read, so the order of the boards, lot and polygons sections doesn't matter.
+ */
+public class EsicupXmlParser {
+
+    /**
+     * Reads an instance whose items get the orientation enumeration of their piece (null if the piece has none) and
+     * whose strip height is the height of the first board, multiplied by stripHeightMargin.
+     */
+    public static Instance parseInstance(File file, String name, double stripHeightMargin)
+            throws IOException, XMLStreamException {
+        EsicupXmlParser parser = new EsicupXmlParser();
+        InputStream is = new BufferedInputStream(new FileInputStream(file));
+        try {
+            XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(file.getAbsolutePath(), is);
+            parser.read(reader);
+            reader.close();
+        } finally {
+            is.close();
+        }
+
+        List<Item> items = new ArrayList<>();
+        for (Piece piece : parser.pieces) {
+            Shape shape = new Shape(parser.outline(piece, file));
+            Integer id = items.size();
+            Item item = new Item(id, piece.quantity, null, null, null, piece.orientations, null, shape);
+            items.add(item);
+        }
+        if (parser.boards.isEmpty()) {
+            throw new RuntimeException("No board in " + file.getAbsolutePath());
+        }
+        Ring board = parser.outline(parser.boards.get(0), file);
+        double yMin = Double.POSITIVE_INFINITY;
+        double yMax = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < board.size(); i++) {
+            yMin = Math.min(yMin, board.y(i));
+            yMax = Math.max(yMax, board.y(i));
+        }
+        double stripHeight = (yMax - yMin) * stripHeightMargin;
+        return new Instance(name, items, stripHeight);
+    }
+
+    /**
+     * The ESICUP XML files in a dataset folder, one per variant of the dataset, sorted by name.
+     */
+    public static List<File> variantFiles(File folder) throws IOException {
+        File[] files = folder.listFiles((dir, fileName) -> fileName.endsWith(".xml"));
+        if (files == null || files.length == 0) {
+            throw new FileNotFoundException("No .xml files in " + folder.getAbsolutePath());
+        }
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+
+    /**
+     * The name of the variant stored in file: its file name without the extension.
+     */
+    public static String variantName(File file) {
+        String fileName = file.getName();
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? fileName : fileName.substring(0, dot);
+    }
+
+    //pieces of the first lot, in document order
+    private final List<Piece> pieces = new ArrayList<>();
+    //pieces of the first boards section, in document order
+    private final List<Piece> boards = new ArrayList<>();
+    //polygon id -> outline, the first polygon wins if an id occurs more than once
+    private final Map<String, Ring> polygons = new HashMap<>();
+
+    //the outline of the first component of piece, moved by the offset of that component
+    private Ring outline(Piece piece, File file) {
+        Ring outline = polygons.get(piece.polygonId);
+        if (outline == null) {
+            throw new RuntimeException("Unknown polygon " + piece.polygonId + " in " + file.getAbsolutePath());
+        }
+        if (piece.xOffset == 0.0 && piece.yOffset == 0.0) {
+            return outline.copy();
+        }
+        Ring moved = new Ring(outline.size() + 1);
+        for (int i = 0; i < outline.size(); i++) {
+            moved.add(outline.x(i) + piece.xOffset, outline.y(i) + piece.yOffset);
+        }
+        return moved;
+    }
+
+    private void read(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 0;
+        boolean lotSeen = false;
+        boolean boardsSeen = false;
+        //the lot or boards section being read, and the list its pieces go to
+        int sectionDepth = -1;
+        List<Piece> section = null;
+        Piece piece = null;
+        int pieceDepth = -1;
+        boolean inOrientation = false;
+        String polygonId = null;
+        Ring outline = null;
+        int linesDepth = -1;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                String element = reader.getLocalName();
+                if (sectionDepth < 0 && !lotSeen && element.equals("lot")) {
+                    lotSeen = true;
+                    sectionDepth = depth;
+                    section = pieces;
+                } else if (sectionDepth < 0 && !boardsSeen && element.equals("boards")) {
+                    boardsSeen = true;
+                    sectionDepth = depth;
+                    section = boards;
+                } else if (sectionDepth >= 0 && depth == sectionDepth + 1) {
+                    //every child element of the lot or boards is a piece
+                    piece = new Piece(Integer.parseInt(attribute(reader, "quantity")));
+                    pieceDepth = depth;
+                } else if (piece != null && element.equals("orientation")) {
+                    inOrientation = true;
+                    if (piece.orientations == null) {
+                        piece.orientations = new ArrayList<>();
+                    }
+                } else if (inOrientation && element.equals("enumeration")) {
+                    piece.orientations.add(Double.parseDouble(attribute(reader, "angle")));
+                } else if (inOrientation) {
+                    throw new XMLStreamException("Unsupported orientation <" + element + ">, only enumerations are",
+                            reader.getLocation());
+                } else if (piece != null && piece.polygonId == null && element.equals("component")) {
+                    piece.polygonId = attribute(reader, "idPolygon");
+                    piece.xOffset = optionalDouble(reader, "xOffset");
+                    piece.yOffset = optionalDouble(reader, "yOffset");
+                } else if (polygonId == null && element.equals("polygon")) {
+                    polygonId = attribute(reader, "id");
+                } else if (polygonId != null && outline == null && element.equals("lines")) {
+                    outline = new Ring();
+                    linesDepth = depth;
+                } else if (linesDepth >= 0 && depth == linesDepth + 1) {
+                    //every child element of lines is a segment, its start is a vertex of the polygon
+                    double x = Double.parseDouble(attribute(reader, "x0"));
+                    double y = Double.parseDouble(attribute(reader, "y0"));
+                    outline.add(x, y);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth == sectionDepth) {
+                    sectionDepth = -1;
+                    section = null;
+                } else if (depth == pieceDepth) {
+                    section.add(piece);
+                    piece = null;
+                    pieceDepth = -1;
+                } else if (inOrientation && reader.getLocalName().equals("orientation")) {
+                    inOrientation = false;
+                } else if (depth == linesDepth) {
+                    linesDepth = -1;
+                } else if (polygonId != null && reader.getLocalName().equals("polygon")) {
+                    if (outline != null) {
+                        polygons.putIfAbsent(polygonId, outline);
+                    }
+                    polygonId = null;
+                    outline = null;
+                }
+                depth--;
+            }
+        }
+    }
+
+    private static String attribute(XMLStreamReader reader, String name) throws XMLStreamException {
+        String value = reader.getAttributeValue(null, name);
+        if (value == null) {
+            throw new XMLStreamException("Missing attribute " + name + " on <" + reader.getLocalName() + ">",
+                    reader.getLocation());
+        }
+        return value;
+    }
+
+    private static double optionalDouble(XMLStreamReader reader, String name) {
+        String value = reader.getAttributeValue(null, name);
+        return value == null ? 0.0 : Double.parseDouble(value);
+    }
+
+    private static class Piece {
+        final int quantity;
+        String polygonId;
+        double xOffset;
+        double yOffset;
+        //null if the piece has no orientation element
+        List<Double> orientations;
+
+        Piece(int quantity) {
+            this.quantity = quantity;
+        }
+    }
+}
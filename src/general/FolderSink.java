@@ -0,0 +1,51 @@
+package general;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes the files into a folder. Existing files are replaced, not written through: they may be hard links to files
+ * in a DXFCache.
+ */
+public class FolderSink implements OutputSink {
+    private final File folder;
+
+    public FolderSink(File folder) {
+        this.folder = folder;
+    }
+
+    @Override
+    public OutputStream openFile(String path) throws IOException {
+        File file = prepare(path);
+        return new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+    }
+
+    /**
+     * Hard links the source into the folder, or copies it where links aren't supported.
+     */
+    @Override
+    public void copyFile(String path, File source) throws IOException {
+        File file = prepare(path);
+        try {
+            Files.createLink(file.toPath(), source.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(source.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private File prepare(String path) throws IOException {
+        File file = new File(folder, path);
+        file.getParentFile().mkdirs();
+        Files.deleteIfExists(file.toPath());
+        return file;
+    }
+}
@@ -0,0 +1,30 @@
+package general;
+
+import java.util.concurrent.ExecutorService;
+import java.util.zip.Deflater;
+
+/**
+ * Options for writing a converted instance with Util.writeInstance. The defaults give the regular output.
+ */
+public class OutputSettings {
+    //write the instance json without indentation and line breaks, for machine consumers
+    public boolean compactJson = false;
+    //write binary DXF files instead of text ones, same groups but faster to write
+    public boolean binaryDxf = false;
+    //write only the ENTITIES section of the DXF files, not the tables and objects AutoCAD needs (not with binaryDxf)
+    public boolean minimalDxf = false;
+    //write a single DXF per instance with a block per item and bin, instead of a file each (Instance.writeCombinedDXF)
+    public boolean combinedDxf = false;
+    //with combinedDxf, also insert every block in the drawing, laid out on a grid
+    public boolean dxfPreviews = false;
+    //reuse previously generated DXF files, null to always generate them
+    public DXFCache dxfCache = null;
+    //generate the DXF files of an instance concurrently on this pool, null to generate them one by one
+    public ExecutorService dxfExecutor = null;
+    //deflate level of the zip archive, 0-9 or -1 for the default
+    public int zipLevel = Deflater.DEFAULT_COMPRESSION;
+    //store the zip entries uncompressed
+    public boolean zipStored = false;
+    //only write the zip archive, not the output folder (Util.writeConvertedInstance)
+    public boolean zipOnly = false;
+}
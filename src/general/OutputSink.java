@@ -0,0 +1,38 @@
+package general;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+/**
+ * Destination for the files of a converted instance, e.g. a folder or a zip archive. Paths are relative to the root of
+ * the output and use '/' as separator.
+ */
+public interface OutputSink extends Closeable {
+
+    /**
+     * Opens a new file. It must be closed before the next file is opened.
+     */
+    OutputStream openFile(String path) throws IOException;
+
+    /**
+     * Adds an existing file under the given path.
+     */
+    default void copyFile(String path, File source) throws IOException {
+        //open the source first, so that a missing source doesn't leave an empty file behind
+        InputStream is = Files.newInputStream(source.toPath());
+        try {
+            OutputStream os = openFile(path);
+            try {
+                is.transferTo(os);
+            } finally {
+                os.close();
+            }
+        } finally {
+            is.close();
+        }
+    }
+}
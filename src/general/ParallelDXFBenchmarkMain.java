@@ -0,0 +1,110 @@
+package general;
+
+import json.Instance;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compares serial and concurrent DXF generation (Instance.writeDXFs with an executor) on the largest instances of an
+ * instances folder, checking that both give byte-identical files. The files are written to memory, so only
+ * generation and formatting are measured.
+ * <p>
+ * Usage: ParallelDXFBenchmarkMain instancesFolder [threads] [repetitions] [instances]
+ */
+public class ParallelDXFBenchmarkMain {
+    public static void main(String[] args) throws Exception {
+        File instancesFolder = new File(args[0]);
+        int nThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int repetitions = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int nInstances = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        List<ConvertAllMain.Job> jobs = ConvertAllMain.discoverJobs(instancesFolder);
+        List<Instance> instances = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (ConvertAllMain.Job job : jobs) {
+            Instance instance = job.parser.parse(job.input);
+            instance.setShapePaths("dxf");
+            instances.add(instance);
+            names.add(job.name);
+        }
+        //largest instances first, by the size of their DXF files
+        long[] sizes = new long[instances.size()];
+        Integer[] order = new Integer[instances.size()];
+        for (int i = 0; i < order.length; i++) {
+            MemorySink sink = new MemorySink();
+            instances.get(i).writeDXFs(sink, null, null);
+            for (byte[] content : sink.contents.values()) {
+                sizes[i] += content.length;
+            }
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingLong((Integer i) -> -sizes[i]));
+
+        System.out.println("Generating DXF files on " + nThreads + " threads, "
+                + Runtime.getRuntime().availableProcessors() + " processors available");
+        ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+        try {
+            for (int k = 0; k < Math.min(nInstances, order.length); k++) {
+                Instance instance = instances.get(order[k]);
+
+                MemorySink serial = new MemorySink();
+                MemorySink parallel = new MemorySink();
+                instance.writeDXFs(serial, null, null);
+                instance.writeDXFs(parallel, null, executor);
+                boolean identical = serial.files.equals(parallel.files)
+                        && serial.contents.keySet().stream().allMatch(path ->
+                        Arrays.equals(serial.contents.get(path), parallel.contents.get(path)));
+
+                long serialTime = Long.MAX_VALUE;
+                long parallelTime = Long.MAX_VALUE;
+                for (int rep = 0; rep < repetitions; rep++) {
+                    long start = System.nanoTime();
+                    instance.writeDXFs(new MemorySink(), null, null);
+                    serialTime = Math.min(serialTime, System.nanoTime() - start);
+
+                    start = System.nanoTime();
+                    instance.writeDXFs(new MemorySink(), null, executor);
+                    parallelTime = Math.min(parallelTime, System.nanoTime() - start);
+                }
+                System.out.printf("%s: %d files, %d KiB, serial %.1f ms, parallel %.1f ms, speedup %.2fx, identical: %s%n",
+                        names.get(order[k]), serial.files.size(), sizes[order[k]] / 1024, serialTime / 1e6,
+                        parallelTime / 1e6,
+                        (double) serialTime / parallelTime, identical);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    //keeps the written files in memory, in the order they were opened
+    private static class MemorySink implements OutputSink {
+        final List<String> files = new ArrayList<>();
+        final Map<String, byte[]> contents = new TreeMap<>();
+
+        @Override
+        public OutputStream openFile(String path) {
+            files.add(path);
+            return new ByteArrayOutputStream() {
+                @Override
+                public void close() {
+                    contents.put(path, toByteArray());
+                }
+            };
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+}
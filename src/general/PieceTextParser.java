@@ -0,0 +1,64 @@
+package general;
+
+import json.Instance;
+import json.Item;
+import json.Ring;
+import json.Shape;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reader for the plain text format with one block per piece:
+ * <pre>
+ * PIECE 1
+ * QUANTITY
+ * 8
+ * NUMBER OF VERTICES
+ * 3
+ * VERTICES (X,Y)
+ *  0   0
+ *  7   1
+ *  7   5
+ * </pre>
+ * followed by a blank line. Coordinates go straight from the TextScanner into the Ring of every piece.
+ */
+public class PieceTextParser {
+
+    public static Instance parseInstance(File file, String name, List<Double> allowedOrientations, Double stripHeight)
+            throws IOException {
+        TextScanner scanner = new TextScanner(file);
+        List<Item> items = new ArrayList<>();
+        try {
+            while (scanner.skipLine()) { //PIECE 1
+                scanner.skipLine(); //QUANTITY
+                int demand = scanner.nextInt();
+                scanner.endLine();
+                scanner.skipLine(); //NUMBER OF VERTICES
+                int numberOfVertices = scanner.nextInt();
+                scanner.endLine();
+                scanner.skipLine(); //VERTICES (X,Y)
+
+                Ring points = new Ring(numberOfVertices + 1);
+                for (int i = 0; i < numberOfVertices; i++) {
+                    double x = scanner.nextDouble();
+                    double y = scanner.nextDouble();
+                    scanner.endLine();
+                    points.add(x, y);
+                }
+
+                Shape shape = new Shape(points);
+                Integer id = items.size();
+                Item item = new Item(id, demand, null, null, null, allowedOrientations, null, shape);
+                items.add(item);
+
+                scanner.skipLine();
+            }
+        } finally {
+            scanner.close();
+        }
+        return new Instance(name, items, stripHeight);
+    }
+}
@@ -1,26 +1,29 @@
 package general;
 
 import json.Point;
+import json.Ring;
 import json.Shape;
 
 import java.awt.geom.Line2D;
 import java.util.*;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
 
 public class ShapeCleaner {
     public static final int MAX_DISTANCE = 3;
 
     public Shape clean(Shape shape, String name) {
-        ArrayList<Point> cleanedOuter = cleanDuplicatePoints(shape.outer_points, name);
+        ArrayList<Point> cleanedOuter = cleanDuplicatePoints(shape.outer_points.toPointList(), name);
         cleanedOuter = cleanSelfIntersections(cleanedOuter, name);
 
-        ArrayList<ArrayList<Point>> cleanedInner = new ArrayList<>();
-        for (ArrayList<Point> inner : shape.inner_points) {
-            ArrayList<Point> cleanedInnerPoints = cleanDuplicatePoints(inner, name);
+        ArrayList<Ring> cleanedInner = new ArrayList<>();
+        for (Ring inner : shape.inner_points) {
+            ArrayList<Point> cleanedInnerPoints = cleanDuplicatePoints(inner.toPointList(), name);
             cleanedInnerPoints = cleanSelfIntersections(cleanedInnerPoints, name);
-            cleanedInner.add(cleanedInnerPoints);
+            cleanedInner.add(Ring.of(cleanedInnerPoints));
         }
 
-        return new Shape(cleanedOuter, cleanedInner);
+        return new Shape(Ring.of(cleanedOuter), cleanedInner);
     }
 
     public ArrayList<Point> cleanDuplicatePoints(ArrayList<Point> original, String name) {
@@ -40,39 +43,26 @@ public class ShapeCleaner {
         return points;
     }
 
+    //Repeatedly untangles the first pair of crossing lines (lowest line indices first) by flipping the points in between
     public ArrayList<Point> cleanSelfIntersections(ArrayList<Point> original, String name) {
-        List<Line> lines = Line.generateFromPoints(original);
-
-        for (int i = 0; i < lines.size(); i++) {
-            for (int j = 0; j < lines.size(); j++) {
-                if (i == j || i == (j + 1) % lines.size() || (i + 1) % lines.size() == j) {
-                    //same or adjacent lines
-                    continue;
-                } else {
-                    Line line1 = lines.get(i);
-                    Line line2 = lines.get(j);
-                    if (Line.intersects(line1, line2)) {
-                        //self intersection detected
-                        System.out.println("\t\t" + name + ": self intersection detected");
-                        int startingIndex = line1.j;
-                        int endingIndex = line2.i;
-                        //all points between these two indices need to be flipped
-                        ArrayList<Point> fixedPoints = new ArrayList<>();
-                        for (int i1 = 0; i1 < original.size(); i1++) {
-                            int translatedIndex = -1;
-                            if (i1 >= startingIndex && i1 <= endingIndex) {
-                                translatedIndex = endingIndex - (i1 - startingIndex);
-                            } else {
-                                translatedIndex = i1;
-                            }
-                            fixedPoints.add(original.get(translatedIndex));
-                        }
-                        return cleanSelfIntersections(fixedPoints, name);
-                    }
-                }
+        ArrayList<Point> points = original;
+        int nRepairs = 0;
+        while (true) {
+            int[] intersection = new SegmentGrid(points).findFirstIntersection();
+            if (intersection == null) {
+                return points;
             }
+            if (nRepairs++ > (long) points.size() * points.size()) {
+                throw new RuntimeException(name + ": unable to remove self intersections");
+            }
+            //self intersection detected
+            System.out.println("\t\t" + name + ": self intersection detected");
+            int startingIndex = intersection[0] + 1;
+            int endingIndex = intersection[1];
+            //all points between these two indices need to be flipped
+            points = new ArrayList<>(points);
+            Collections.reverse(points.subList(startingIndex, endingIndex + 1));
         }
-        return original;
     }
 
     //Maps points close to the reference shape onto the reference shape
@@ -80,10 +70,14 @@ public class ShapeCleaner {
         //Find which vertices are close to the reference shape
         Set<Integer> pointsToBeReplaced = new HashSet<>();
         List<Line> referenceLines = Line.generateFromPoints(reference);
+        BucketGrid<Line> referenceLineGrid = new BucketGrid<>(Line.averageLength(referenceLines));
+        for (Line line : referenceLines) {
+            referenceLineGrid.add(line, line.start, line.end);
+        }
 
         for (int i = 0; i < original.size(); i++) {
             Point point = original.get(i);
-            if (referenceLines.stream().anyMatch(line -> line.distanceTo(point) < MAX_DISTANCE)) {
+            if (referenceLineGrid.anyWithin(point, MAX_DISTANCE, line -> line.distanceTo(point) < MAX_DISTANCE)) {
                 pointsToBeReplaced.add(i);
             }
         }
@@ -107,15 +101,29 @@ public class ShapeCleaner {
         //Replace the vertices
         ArrayList<Point> cleanedPoints = new ArrayList<>();
 
+        //only reference points within the snapping distance matter, so look up the closest one in a grid
+        double maxSnapDistance = MAX_DISTANCE * 10;
+        BucketGrid<Integer> referencePointGrid = new BucketGrid<>(maxSnapDistance);
+        for (int i = 0; i < reference.size(); i++) {
+            referencePointGrid.add(i, reference.get(i), reference.get(i));
+        }
+
         for (int i = 0; i < original.size(); i++) {
             Point originalPoint = original.get(i);
             if (pointsToBeReplaced.contains(i)) {
-                Point point = reference.stream().min(
-                                Comparator.comparingDouble(p -> Point.distance(p, originalPoint)))
-                        .get();
+                //closest reference point within snapping distance, the first one in case of ties
+                int closestIndex = -1;
+                double closestDistance = maxSnapDistance;
+                for (int index : referencePointGrid.candidatesWithin(originalPoint, maxSnapDistance)) {
+                    double distance = Point.distance(reference.get(index), originalPoint);
+                    if (distance < closestDistance || (distance == closestDistance && index < closestIndex)) {
+                        closestIndex = index;
+                        closestDistance = distance;
+                    }
+                }
 
-                if (Point.distance(originalPoint, point) < MAX_DISTANCE * 10) {
-                    cleanedPoints.add(point);
+                if (closestIndex >= 0) {
+                    cleanedPoints.add(reference.get(closestIndex));
                     nSnappedVertices++;
                 } else {
                     cleanedPoints.add(originalPoint);
@@ -138,29 +146,52 @@ public class ShapeCleaner {
         }
 
         //Inject points from the reference shape if they are close enough
+        //The lines and points of the cleaned shape are indexed and kept up to date as points get injected
+        List<Line> cleanedLines = Line.generateFromPoints(cleanedPoints);
+        BucketGrid<Line> cleanedLineGrid = new BucketGrid<>(Line.averageLength(cleanedLines));
+        for (Line line : cleanedLines) {
+            cleanedLineGrid.add(line, line.start, line.end);
+        }
+        Map<Point, Integer> cleanedPointCounts = new HashMap<>();
+        for (Point point : cleanedPoints) {
+            cleanedPointCounts.merge(point, 1, Integer::sum);
+        }
 
         for (Point referencePoint : reference) {
-            List<Line> cleanedLines = Line.generateFromPoints(cleanedPoints);
-            if (!cleanedPoints.contains(referencePoint)) {
-                if (cleanedLines.stream().anyMatch(line -> line.distanceTo(referencePoint) < MAX_DISTANCE)) {
+            if (!cleanedPointCounts.containsKey(referencePoint)) {
+                if (cleanedLineGrid.anyWithin(referencePoint, MAX_DISTANCE, line -> line.distanceTo(referencePoint) < MAX_DISTANCE)) {
                     //Point should be added to the cleanedPoints
                     //Only question that remains now is where to insert it
                     //Search for the 2 closest points
-                    Point closestPoint = cleanedPoints.stream().min(
-                                    Comparator.comparingDouble(p -> Point.distance(p, referencePoint)))
-                            .get();
-                    Point secondClosestPoint = cleanedPoints.stream().filter(p -> !p.equals(closestPoint))
-                            .min(Comparator.comparingDouble(p -> Point.distance(p, referencePoint)))
-                            .get();
-                    int indexOfClosestPoint = cleanedPoints.indexOf(closestPoint);
-                    int indexOfSecondClosestPoint = cleanedPoints.indexOf(secondClosestPoint);
-                    if (Math.abs(indexOfClosestPoint - indexOfSecondClosestPoint) == 1) {
+                    int indexOfClosestPoint = indexOfClosestPoint(cleanedPoints, referencePoint, null);
+                    Point closestPoint = cleanedPoints.get(indexOfClosestPoint);
+                    int indexOfSecondClosestPoint = indexOfClosestPoint(cleanedPoints, referencePoint, closestPoint);
+                    int insertionIndex = -1;
+                    if (indexOfSecondClosestPoint < 0) {
+                        //no other point to insert next to
+                    } else if (Math.abs(indexOfClosestPoint - indexOfSecondClosestPoint) == 1) {
                         //Closest and second-closest point are adjacent, so we should inject the point
-                        cleanedPoints.add(Math.max(indexOfClosestPoint, indexOfSecondClosestPoint), referencePoint);
-                        nInjectedVertices++;
+                        insertionIndex = Math.max(indexOfClosestPoint, indexOfSecondClosestPoint);
                     } else if (Math.abs(indexOfClosestPoint - indexOfSecondClosestPoint) == reference.size() - 1) {
                         //Closest and second-closest point are adjacent, so we should inject the point
-                        cleanedPoints.add(0, referencePoint);
+                        insertionIndex = 0;
+                    }
+                    if (insertionIndex >= 0) {
+                        if (insertionIndex > 0) {
+                            //the line between the neighbours is split in two
+                            Line splitLine = cleanedLines.get(insertionIndex - 1);
+                            cleanedLineGrid.remove(splitLine, splitLine.start, splitLine.end);
+                            Line before = new Line(splitLine.start, referencePoint, insertionIndex - 1, insertionIndex);
+                            cleanedLines.set(insertionIndex - 1, before);
+                            cleanedLineGrid.add(before, before.start, before.end);
+                        }
+                        if (insertionIndex < cleanedPoints.size()) {
+                            Line after = new Line(referencePoint, cleanedPoints.get(insertionIndex), insertionIndex, insertionIndex + 1);
+                            cleanedLines.add(insertionIndex, after);
+                            cleanedLineGrid.add(after, after.start, after.end);
+                        }
+                        cleanedPoints.add(insertionIndex, referencePoint);
+                        cleanedPointCounts.merge(referencePoint, 1, Integer::sum);
                         nInjectedVertices++;
                     }
                 }
@@ -174,6 +205,24 @@ public class ShapeCleaner {
         return cleanedPoints;
     }
 
+    //Index of the first point closest to the target, skipping points equal to exclude
+    private static int indexOfClosestPoint(List<Point> points, Point target, Point exclude) {
+        int closestIndex = -1;
+        double closestDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < points.size(); i++) {
+            Point point = points.get(i);
+            if (point.equals(exclude)) {
+                continue;
+            }
+            double distance = Point.distance(point, target);
+            if (distance < closestDistance) {
+                closestIndex = i;
+                closestDistance = distance;
+            }
+        }
+        return closestIndex;
+    }
+
     private static class Interval {
         public int start;
         public int end;
@@ -204,13 +253,6 @@ public class ShapeCleaner {
             this.j = j;
         }
 
-        public static boolean intersects(Line l1, Line l2) {
-            Line2D l2D1 = new Line2D.Double(l1.start.x, l1.start.y, l1.end.x, l1.end.y);
-            Line2D l2D2 = new Line2D.Double(l2.start.x, l2.start.y, l2.end.x, l2.end.y);
-
-            return l2D1.intersectsLine(l2D2);
-        }
-
         public static List<Line> generateFromPoints(ArrayList<Point> points) {
             List<Line> lines = new ArrayList<>();
             for (int i = 0; i < points.size() - 1; i++) {
@@ -221,8 +263,186 @@ public class ShapeCleaner {
             return lines;
         }
 
+        public static double averageLength(List<Line> lines) {
+            double totalLength = 0;
+            for (Line line : lines) {
+                totalLength += Point.distance(line.start, line.end);
+            }
+            return lines.isEmpty() ? 0 : totalLength / lines.size();
+        }
+
         public double distanceTo(Point point) {
-            return new Line2D.Double(start.x, start.y, end.x, end.y).ptSegDist(point.x, point.y);
+            return Line2D.ptSegDist(start.x, start.y, end.x, end.y, point.x, point.y);
+        }
+    }
+
+    //Sparse uniform grid bucketing objects by their bounding box, supporting insertions and removals
+    private static class BucketGrid<T> {
+        private final double cellSize;
+        private final HashMap<Long, ArrayList<T>> buckets = new HashMap<>();
+
+        public BucketGrid(double cellSize) {
+            //cells smaller than the query distance only add lookups
+            this.cellSize = Math.max(cellSize, MAX_DISTANCE);
+        }
+
+        public void add(T object, Point corner1, Point corner2) {
+            forEachCell(corner1, corner2, 0, key -> buckets.computeIfAbsent(key, k -> new ArrayList<>()).add(object));
+        }
+
+        public void remove(T object, Point corner1, Point corner2) {
+            forEachCell(corner1, corner2, 0, key -> {
+                ArrayList<T> bucket = buckets.get(key);
+                for (int i = 0; i < bucket.size(); i++) {
+                    if (bucket.get(i) == object) {
+                        bucket.remove(i);
+                        break;
+                    }
+                }
+            });
+        }
+
+        //Whether the predicate holds for any object with a bounding box within distance of the point;
+        //objects spanning several cells may be tested more than once
+        public boolean anyWithin(Point point, double distance, Predicate<T> predicate) {
+            int minColumn = cell(point.x - distance), maxColumn = cell(point.x + distance);
+            int minRow = cell(point.y - distance), maxRow = cell(point.y + distance);
+            for (int c = minColumn; c <= maxColumn; c++) {
+                for (int r = minRow; r <= maxRow; r++) {
+                    ArrayList<T> bucket = buckets.get(key(c, r));
+                    if (bucket != null) {
+                        for (T object : bucket) {
+                            if (predicate.test(object)) {
+                                return true;
+                            }
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        public List<T> candidatesWithin(Point point, double distance) {
+            List<T> candidates = new ArrayList<>();
+            forEachCell(point, point, distance, key -> {
+                ArrayList<T> bucket = buckets.get(key);
+                if (bucket != null) {
+                    candidates.addAll(bucket);
+                }
+            });
+            return candidates;
+        }
+
+        private void forEachCell(Point corner1, Point corner2, double margin, LongConsumer action) {
+            int minColumn = cell(Math.min(corner1.x, corner2.x) - margin), maxColumn = cell(Math.max(corner1.x, corner2.x) + margin);
+            int minRow = cell(Math.min(corner1.y, corner2.y) - margin), maxRow = cell(Math.max(corner1.y, corner2.y) + margin);
+            for (int c = minColumn; c <= maxColumn; c++) {
+                for (int r = minRow; r <= maxRow; r++) {
+                    action.accept(key(c, r));
+                }
+            }
+        }
+
+        private int cell(double coordinate) {
+            return (int) Math.floor(coordinate / cellSize);
+        }
+
+        private static long key(int column, int row) {
+            return ((long) column << 32) | (row & 0xffffffffL);
+        }
+    }
+
+    //Uniform grid over the lines of a polygon, so only lines in the same cells need to be tested for intersection
+    private static class SegmentGrid {
+        private final ArrayList<Point> points;
+        private final int nLines;
+        private final double minX, minY, cellSize;
+        private final int nColumns, nRows;
+        private final int[][] cells;
+        private final int[] cellSizes;
+
+        public SegmentGrid(ArrayList<Point> points) {
+            this.points = points;
+            this.nLines = Math.max(points.size() - 1, 0);
+
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            for (Point point : points) {
+                minX = Math.min(minX, point.x);
+                minY = Math.min(minY, point.y);
+                maxX = Math.max(maxX, point.x);
+                maxY = Math.max(maxY, point.y);
+            }
+            this.minX = minX;
+            this.minY = minY;
+
+            //aim for about one line per cell
+            double width = Math.max(maxX - minX, 0), height = Math.max(maxY - minY, 0);
+            double cellSize = Math.sqrt(width * height / Math.max(nLines, 1));
+            if (!(cellSize > 0)) {
+                cellSize = Math.max(Math.max(width, height), 1);
+            }
+            this.cellSize = cellSize;
+            //capped as doubles, a ring that is wide but hardly tall gives ratios beyond the int range
+            this.nColumns = (int) Math.min(Math.floor((maxX - minX) / cellSize) + 1, 1024);
+            this.nRows = (int) Math.min(Math.floor((maxY - minY) / cellSize) + 1, 1024);
+            this.cells = new int[nColumns * nRows][];
+            this.cellSizes = new int[nColumns * nRows];
+
+            for (int i = 0; i < nLines; i++) {
+                Point start = points.get(i), end = points.get(i + 1);
+                for (int c = column(Math.min(start.x, end.x)); c <= column(Math.max(start.x, end.x)); c++) {
+                    for (int r = row(Math.min(start.y, end.y)); r <= row(Math.max(start.y, end.y)); r++) {
+                        add(c * nRows + r, i);
+                    }
+                }
+            }
+        }
+
+        private int column(double x) {
+            return Math.min((int) ((x - minX) / cellSize), nColumns - 1);
+        }
+
+        private int row(double y) {
+            return Math.min((int) ((y - minY) / cellSize), nRows - 1);
+        }
+
+        private void add(int cell, int line) {
+            if (cells[cell] == null) {
+                cells[cell] = new int[4];
+            } else if (cellSizes[cell] == cells[cell].length) {
+                cells[cell] = Arrays.copyOf(cells[cell], cells[cell].length * 2);
+            }
+            cells[cell][cellSizes[cell]++] = line;
+        }
+
+        //Returns the lexicographically smallest pair of intersecting non-adjacent lines {i, j} with i < j, or null
+        public int[] findFirstIntersection() {
+            for (int i = 0; i < nLines; i++) {
+                Point start = points.get(i), end = points.get(i + 1);
+                int firstJ = Integer.MAX_VALUE;
+                for (int c = column(Math.min(start.x, end.x)); c <= column(Math.max(start.x, end.x)); c++) {
+                    for (int r = row(Math.min(start.y, end.y)); r <= row(Math.max(start.y, end.y)); r++) {
+                        int cell = c * nRows + r;
+                        for (int k = 0; k < cellSizes[cell]; k++) {
+                            int j = cells[cell][k];
+                            if (j <= i || j >= firstJ || i == (j + 1) % nLines || (i + 1) % nLines == j) {
+                                //same, adjacent or already covered lines
+                                continue;
+                            }
+                            Point otherStart = points.get(j), otherEnd = points.get(j + 1);
+                            if (Line2D.linesIntersect(start.x, start.y, end.x, end.y,
+                                    otherStart.x, otherStart.y, otherEnd.x, otherEnd.y)) {
+                                firstJ = j;
+                            }
+                        }
+                    }
+                }
+                if (firstJ != Integer.MAX_VALUE) {
+                    return new int[]{i, firstJ};
+                }
+            }
+            return null;
         }
     }
-}
+}
\ No newline at end of file
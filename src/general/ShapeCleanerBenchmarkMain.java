@@ -0,0 +1,99 @@
+package general;
+
+import json.Point;
+
+import java.awt.geom.Line2D;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares ShapeCleaner.cleanSelfIntersections with the previous all-pairs implementation on every .cmp shape
+ * of the Baldacci instances, checking that both give the same result.
+ * <p>
+ * Usage: ShapeCleanerBenchmarkMain baldacciFolder [repetitions]
+ */
+public class ShapeCleanerBenchmarkMain {
+    public static void main(String[] args) throws IOException {
+        File baldacciFolder = new File(args[0]);
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        ShapeCleaner cleaner = new ShapeCleaner();
+        List<ArrayList<Point>> shapes = new ArrayList<>();
+        int nVertices = 0;
+        for (File folder : baldacciFolder.listFiles(File::isDirectory)) {
+            for (File file : folder.listFiles((dir, name) -> name.endsWith(".cmp"))) {
+                ArrayList<Point> points = readOuterPoints(file);
+                points.add(points.get(0));
+                shapes.add(cleaner.cleanDuplicatePoints(points, file.getName()));
+                nVertices += points.size();
+            }
+        }
+        System.out.println(shapes.size() + " shapes, " + nVertices + " vertices");
+
+        for (int rep = 0; rep < repetitions; rep++) {
+            long start = System.nanoTime();
+            List<ArrayList<Point>> previousResults = new ArrayList<>();
+            for (ArrayList<Point> shape : shapes) {
+                previousResults.add(allPairsCleanSelfIntersections(shape));
+            }
+            long previousTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            List<ArrayList<Point>> results = new ArrayList<>();
+            for (ArrayList<Point> shape : shapes) {
+                results.add(cleaner.cleanSelfIntersections(shape, "benchmark"));
+            }
+            long time = System.nanoTime() - start;
+
+            System.out.println("all pairs: " + previousTime / 1_000_000 + " ms\tgrid: " + time / 1_000_000
+                    + " ms\tidentical: " + previousResults.equals(results));
+        }
+    }
+
+    static ArrayList<Point> readOuterPoints(File file) throws IOException {
+        BufferedReader br = new BufferedReader(new FileReader(file));
+        br.readLine();
+        br.readLine();
+        br.readLine();
+        int numberOfVertices = Integer.parseInt(br.readLine().split(" ")[3]);
+        ArrayList<Point> points = new ArrayList<>();
+        for (int i = 0; i < numberOfVertices; i++) {
+            String[] coords = br.readLine().split(" ");
+            points.add(new Point(Integer.parseInt(coords[0]), Integer.parseInt(coords[1])));
+        }
+        br.close();
+        return points;
+    }
+
+    //The previous implementation: compares all pairs of lines and restarts after every repair
+    static ArrayList<Point> allPairsCleanSelfIntersections(ArrayList<Point> original) {
+        int nLines = original.size() - 1;
+        for (int i = 0; i < nLines; i++) {
+            for (int j = 0; j < nLines; j++) {
+                if (i == j || i == (j + 1) % nLines || (i + 1) % nLines == j) {
+                    continue;
+                }
+                Line2D line1 = new Line2D.Double(original.get(i).x, original.get(i).y, original.get(i + 1).x, original.get(i + 1).y);
+                Line2D line2 = new Line2D.Double(original.get(j).x, original.get(j).y, original.get(j + 1).x, original.get(j + 1).y);
+                if (line1.intersectsLine(line2)) {
+                    int startingIndex = i + 1;
+                    int endingIndex = j;
+                    ArrayList<Point> fixedPoints = new ArrayList<>();
+                    for (int i1 = 0; i1 < original.size(); i1++) {
+                        if (i1 >= startingIndex && i1 <= endingIndex) {
+                            fixedPoints.add(original.get(endingIndex - (i1 - startingIndex)));
+                        } else {
+                            fixedPoints.add(original.get(i1));
+                        }
+                    }
+                    return allPairsCleanSelfIntersections(fixedPoints);
+                }
+            }
+        }
+        return original;
+    }
+}
@@ -8,6 +8,7 @@ import com.jsevy.jdxf.DXFGraphics;
 import json.Point;
 import json.Shape;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -23,16 +24,16 @@ public class ShapeCleanerMain {
 
         String originalShape2String = "[{\"x\":591,\"y\":504},{\"x\":588,\"y\":512},{\"x\":586,\"y\":516},{\"x\":584,\"y\":521},{\"x\":582,\"y\":525},{\"x\":580,\"y\":530},{\"x\":578,\"y\":534},{\"x\":576,\"y\":539},{\"x\":574,\"y\":543},{\"x\":572,\"y\":548},{\"x\":570,\"y\":552},{\"x\":106,\"y\":450},{\"x\":103,\"y\":449},{\"x\":100,\"y\":448},{\"x\":98,\"y\":447},{\"x\":96,\"y\":445},{\"x\":95,\"y\":441},{\"x\":95,\"y\":437},{\"x\":95,\"y\":433},{\"x\":95,\"y\":429},{\"x\":95,\"y\":424},{\"x\":95,\"y\":420},{\"x\":95,\"y\":415},{\"x\":95,\"y\":410},{\"x\":95,\"y\":406},{\"x\":95,\"y\":401},{\"x\":95,\"y\":397},{\"x\":95,\"y\":392},{\"x\":95,\"y\":388},{\"x\":94,\"y\":383},{\"x\":94,\"y\":378},{\"x\":94,\"y\":373},{\"x\":94,\"y\":368},{\"x\":93,\"y\":363},{\"x\":93,\"y\":359},{\"x\":92,\"y\":354},{\"x\":92,\"y\":349},{\"x\":91,\"y\":344},{\"x\":91,\"y\":339},{\"x\":90,\"y\":335},{\"x\":90,\"y\":330},{\"x\":89,\"y\":325},{\"x\":88,\"y\":321},{\"x\":88,\"y\":316},{\"x\":87,\"y\":311},{\"x\":86,\"y\":307},{\"x\":86,\"y\":302},{\"x\":85,\"y\":298},{\"x\":84,\"y\":293},{\"x\":83,\"y\":288},{\"x\":82,\"y\":284},{\"x\":82,\"y\":279},{\"x\":81,\"y\":274},{\"x\":80,\"y\":270},{\"x\":79,\"y\":265},{\"x\":78,\"y\":261},{\"x\":77,\"y\":256},{\"x\":76,\"y\":251},{\"x\":76,\"y\":247},{\"x\":75,\"y\":242},{\"x\":74,\"y\":237},{\"x\":73,\"y\":233},{\"x\":72,\"y\":228},{\"x\":71,\"y\":224},{\"x\":70,\"y\":219},{\"x\":69,\"y\":214},{\"x\":68,\"y\":210},{\"x\":66,\"y\":205},{\"x\":65,\"y\":200},{\"x\":64,\"y\":196},{\"x\":63,\"y\":191},{\"x\":62,\"y\":187},{\"x\":60,\"y\":182},{\"x\":59,\"y\":178},{\"x\":58,\"y\":173},{\"x\":56,\"y\":169},{\"x\":55,\"y\":164},{\"x\":53,\"y\":160},{\"x\":52,\"y\":155},{\"x\":51,\"y\":151},{\"x\":49,\"y\":146},{\"x\":47,\"y\":142},{\"x\":46,\"y\":137},{\"x\":44,\"y\":133},{\"x\":43,\"y\":128},{\"x\":41,\"y\":123},{\"x\":39,\"y\":119},{\"x\":37,\"y\":114},{\"x\":36,\"y\":109},{\"x\":34,\"y\":105},{\"x\":32,\"y\":100},{\"x\":30,\"y\":95},{\"x\":29,\"y\":91},{\"x\":27,\"y\":86},{\"x\":25,\"y\":82},{\"x\":24,\"y\":77},{\"x\":22,\"y\":73},{\"x\":20,\"y\":68},{\"x\":19,\"y\":64},{\"x\":17,\"y\":60},{\"x\":16,\"y\":55},{\"x\":14,\"y\":51},{\"x\":12,\"y\":46},{\"x\":11,\"y\":42},{\"x\":11,\"y\":41},{\"x\":80,\"y\":41},{\"x\":90,\"y\":60},{\"x\":110,\"y\":120},{\"x\":126,\"y\":165},{\"x\":160,\"y\":300},{\"x\":173,\"y\":410},{\"x\":591,\"y\":504}]";
 
-        Shape referenceShape = new Shape(gson.fromJson(referenceShapeString, new TypeToken<List<Point>>() {
+        Shape referenceShape = new Shape(gson.<List<Point>>fromJson(referenceShapeString, new TypeToken<List<Point>>() {
         }.getType()));
-        Shape originalShape1 = new Shape(gson.fromJson(originalShape1String, new TypeToken<List<Point>>() {
+        Shape originalShape1 = new Shape(gson.<List<Point>>fromJson(originalShape1String, new TypeToken<List<Point>>() {
         }.getType()));
-        Shape originalShape2 = new Shape(gson.fromJson(originalShape2String, new TypeToken<List<Point>>() {
+        Shape originalShape2 = new Shape(gson.<List<Point>>fromJson(originalShape2String, new TypeToken<List<Point>>() {
         }.getType()));
 
         ShapeCleaner cleaner = new ShapeCleaner();
-        ArrayList<Point> cleanedPoints1 = cleaner.cleanSharedVertices(originalShape1.outer_points, referenceShape.outer_points, "testShape1");
-        ArrayList<Point> cleanedPoints2 = cleaner.cleanSharedVertices(originalShape2.outer_points, referenceShape.outer_points, "testShape2");
+        ArrayList<Point> cleanedPoints1 = cleaner.cleanSharedVertices(originalShape1.outer_points.toPointList(), referenceShape.outer_points.toPointList(), "testShape1");
+        ArrayList<Point> cleanedPoints2 = cleaner.cleanSharedVertices(originalShape2.outer_points.toPointList(), referenceShape.outer_points.toPointList(), "testShape2");
 
         Shape cleanedShape1 = new Shape(cleanedPoints1);
         Shape cleanedShape2 = new Shape(cleanedPoints2);
@@ -55,8 +56,8 @@ public class ShapeCleanerMain {
     }
 
     static void writeFile(DXFDocument dxf, File file) throws IOException {
-        FileWriter fw = new FileWriter(file);
-        fw.write(dxf.toDXFString());
-        fw.close();
+        BufferedWriter bw = new BufferedWriter(new FileWriter(file));
+        dxf.writeTo(bw);
+        bw.close();
     }
 }
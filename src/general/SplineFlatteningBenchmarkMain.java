@@ -0,0 +1,220 @@
+package general;
+
+import com.jsevy.jdxf.BSpline;
+import com.jsevy.jdxf.BSplineBasisFunction;
+import com.jsevy.jdxf.CurvePoints;
+import com.jsevy.jdxf.RealPoint;
+import json.Point;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares BSpline.flatten and the current BSpline.getCurvePoints with the previous recursive getCurvePoints,
+ * using the outline of every Baldacci .cmp shape as the control polygon of a closed cubic spline. Reports the number
+ * of points, the time, the allocations and the largest distance between the curve and each polyline.
+ * <p>
+ * Usage: SplineFlatteningBenchmarkMain baldacciFolder [tolerance] [flatness] [repetitions]
+ */
+public class SplineFlatteningBenchmarkMain {
+    static final int DEGREE = 3;
+
+    public static void main(String[] args) throws IOException {
+        File baldacciFolder = new File(args[0]);
+        double tolerance = args.length > 1 ? Double.parseDouble(args[1]) : 1.0;
+        double flatness = args.length > 2 ? Double.parseDouble(args[2]) : 0.05;
+        int repetitions = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+
+        List<double[]> controlPolygons = new ArrayList<>();
+        File[] folders = baldacciFolder.listFiles(File::isDirectory);
+        Arrays.sort(folders);
+        for (File folder : folders) {
+            File[] files = folder.listFiles((dir, name) -> name.endsWith(".cmp"));
+            Arrays.sort(files);
+            for (File file : files) {
+                ArrayList<Point> points = ShapeCleanerBenchmarkMain.readOuterPoints(file);
+                //the first points again at the end close the curve
+                double[] controlPoints = new double[2 * (points.size() + DEGREE)];
+                for (int i = 0; i < points.size() + DEGREE; i++) {
+                    Point point = points.get(i % points.size());
+                    controlPoints[2 * i] = point.x;
+                    controlPoints[2 * i + 1] = point.y;
+                }
+                controlPolygons.add(controlPoints);
+            }
+        }
+        List<BSpline> splines = new ArrayList<>();
+        for (double[] controlPoints : controlPolygons) {
+            int[] multiplicities = new int[controlPoints.length / 2];
+            Arrays.fill(multiplicities, 1);
+            splines.add(new BSpline(DEGREE, controlPoints, multiplicities, false));
+        }
+
+        //sizes and accuracy
+        long previousPoints = 0;
+        long chordPoints = 0;
+        long flatPoints = 0;
+        double previousDeviation = 0;
+        double chordDeviation = 0;
+        double flatDeviation = 0;
+        double longestChord = 0;
+        //getCurvePoints should give the previous points, without the start of each knot interval repeated
+        int samePoints = 0;
+        double largestDifference = 0;
+        CurvePoints buffer = new CurvePoints();
+        for (int s = 0; s < splines.size(); s++) {
+            List<RealPoint> previous = previousGetCurvePoints(controlPolygons.get(s), tolerance);
+            List<RealPoint> chord = splines.get(s).getCurvePoints(tolerance);
+            buffer.clear();
+            splines.get(s).flatten(flatness, buffer);
+            previousPoints += previous.size();
+            chordPoints += chord.size();
+            flatPoints += buffer.size();
+            List<RealPoint> distinct = new ArrayList<>();
+            for (RealPoint point : previous) {
+                if (distinct.isEmpty() || !point.equals(distinct.get(distinct.size() - 1))) {
+                    distinct.add(point);
+                }
+            }
+            if (distinct.size() == chord.size()) {
+                samePoints++;
+                for (int i = 0; i < chord.size(); i++) {
+                    largestDifference = Math.max(largestDifference,
+                            RealPoint.magnitude(RealPoint.difference(chord.get(i), distinct.get(i))));
+                }
+            }
+            for (int i = 0; i + 1 < chord.size(); i++) {
+                longestChord = Math.max(longestChord, RealPoint.magnitude(RealPoint.difference(chord.get(i), chord.get(i + 1))));
+            }
+            //deviation of a sample of the curves, it is quadratic in the number of points
+            if (s % 40 == 0) {
+                List<RealPoint> flat = new ArrayList<>();
+                for (int i = 0; i < buffer.size(); i++) {
+                    flat.add(new RealPoint(buffer.getX(i), buffer.getY(i), buffer.getZ(i)));
+                }
+                List<RealPoint> curve = previousSample(controlPolygons.get(s), 16);
+                previousDeviation = Math.max(previousDeviation, deviation(curve, previous));
+                chordDeviation = Math.max(chordDeviation, deviation(curve, chord));
+                flatDeviation = Math.max(flatDeviation, deviation(curve, flat));
+            }
+        }
+        System.out.println(splines.size() + " splines, tolerance " + tolerance + ", flatness " + flatness);
+        System.out.printf("previous getCurvePoints: %d points, max deviation %.4f%n", previousPoints, previousDeviation);
+        System.out.printf("getCurvePoints: %d points, max deviation %.4f, longest segment %.4f, same points as previous: "
+                + "%d/%d (largest difference %.2e)%n", chordPoints, chordDeviation, longestChord, samePoints,
+                splines.size(), largestDifference);
+        System.out.printf("flatten: %d points, max deviation %.4f%n", flatPoints, flatDeviation);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int rep = 0; rep < repetitions; rep++) {
+            long bytes = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            for (double[] controlPoints : controlPolygons) {
+                previousGetCurvePoints(controlPoints, tolerance);
+            }
+            long previousTime = System.nanoTime() - start;
+            long previousBytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+
+            bytes = threads.getCurrentThreadAllocatedBytes();
+            start = System.nanoTime();
+            for (BSpline spline : splines) {
+                spline.getCurvePoints(tolerance);
+            }
+            long chordTime = System.nanoTime() - start;
+            long chordBytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+
+            bytes = threads.getCurrentThreadAllocatedBytes();
+            start = System.nanoTime();
+            for (BSpline spline : splines) {
+                buffer.clear();
+                spline.flatten(flatness, buffer);
+            }
+            long flatTime = System.nanoTime() - start;
+            long flatBytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+
+            System.out.println("previous: " + previousTime / 1_000_000 + " ms, " + previousBytes / 1024 + " KiB\t"
+                    + "getCurvePoints: " + chordTime / 1_000_000 + " ms, " + chordBytes / 1024 + " KiB\t"
+                    + "flatten: " + flatTime / 1_000_000 + " ms, " + flatBytes / 1024 + " KiB");
+        }
+    }
+
+    //largest distance from the curve points to the polyline
+    static double deviation(List<RealPoint> curve, List<RealPoint> polyline) {
+        double deviation = 0;
+        for (RealPoint point : curve) {
+            double distance = Double.POSITIVE_INFINITY;
+            for (int i = 0; i + 1 < polyline.size(); i++) {
+                distance = Math.min(distance, distanceToSegment(point, polyline.get(i), polyline.get(i + 1)));
+            }
+            deviation = Math.max(deviation, distance);
+        }
+        return deviation;
+    }
+
+    static double distanceToSegment(RealPoint point, RealPoint start, RealPoint end) {
+        RealPoint direction = RealPoint.difference(end, start);
+        double lengthSquared = RealPoint.dotProduct(direction, direction);
+        double s = lengthSquared > 0 ? RealPoint.dotProduct(RealPoint.difference(point, start), direction) / lengthSquared : 0;
+        s = Math.max(0, Math.min(1, s));
+        return RealPoint.magnitude(RealPoint.difference(point, RealPoint.sum(start, RealPoint.scalarProduct(s, direction))));
+    }
+
+    //samples points per knot interval of the curve, with the previous evaluation
+    static List<RealPoint> previousSample(double[] controlPoints, int samples) {
+        BSplineBasisFunction basisFunction = new BSplineBasisFunction(DEGREE + 1);
+        int tStart = basisFunction.getSupport();
+        int tEnd = controlPoints.length / 2 - 1;
+        List<RealPoint> points = new ArrayList<>();
+        for (int i = tStart; i < tEnd; i++) {
+            for (int k = 0; k < samples; k++) {
+                points.add(previousComputePoint(controlPoints, basisFunction, i + (double) k / samples));
+            }
+        }
+        return points;
+    }
+
+    //The previous implementation of BSpline.getCurvePoints, for control points of multiplicity 1
+    static List<RealPoint> previousGetCurvePoints(double[] controlPoints, double tolerance) {
+        BSplineBasisFunction basisFunction = new BSplineBasisFunction(DEGREE + 1);
+        List<RealPoint> pointsVector = new ArrayList<RealPoint>();
+        int tStart = basisFunction.getSupport();
+        int tEnd = controlPoints.length / 2 - 1;
+        for (int i = tStart; i < tEnd; i++) {
+            List<RealPoint> intervalPoints = new ArrayList<RealPoint>();
+            RealPoint startPoint = previousComputePoint(controlPoints, basisFunction, i);
+            RealPoint endPoint = previousComputePoint(controlPoints, basisFunction, i + 1);
+            intervalPoints.add(startPoint);
+            previousDrawCurve(controlPoints, basisFunction, i, startPoint, i + 1, endPoint, tolerance, intervalPoints);
+            pointsVector.addAll(intervalPoints);
+        }
+        return pointsVector;
+    }
+
+    static RealPoint previousComputePoint(double[] controlPoints, BSplineBasisFunction basisFunction, double t) {
+        int i = (int) Math.round(Math.floor(t));
+        RealPoint curvePoint = new RealPoint(0, 0, 0);
+        for (int j = 0; j < basisFunction.getSupport(); j++) {
+            double basisFn = basisFunction.value(t - (i - j));
+            curvePoint.x += controlPoints[2 * (i - j)] * basisFn;
+            curvePoint.y += controlPoints[2 * (i - j) + 1] * basisFn;
+        }
+        return curvePoint;
+    }
+
+    static void previousDrawCurve(double[] controlPoints, BSplineBasisFunction basisFunction, double tStart,
+                                  RealPoint startPoint, double tEnd, RealPoint endPoint, double tolerance,
+                                  List<RealPoint> pointsVector) {
+        if (RealPoint.magnitude(RealPoint.difference(startPoint, endPoint)) <= tolerance) {
+            pointsVector.add(endPoint);
+        } else {
+            double tMid = (tStart + tEnd) / 2;
+            RealPoint midPoint = previousComputePoint(controlPoints, basisFunction, tMid);
+            previousDrawCurve(controlPoints, basisFunction, tStart, startPoint, tMid, midPoint, tolerance, pointsVector);
+            previousDrawCurve(controlPoints, basisFunction, tMid, midPoint, tEnd, endPoint, tolerance, pointsVector);
+        }
+    }
+}
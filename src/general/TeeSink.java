@@ -0,0 +1,96 @@
+package general;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes every file to several sinks at once, e.g. a folder and a zip archive in a single pass.
+ */
+public class TeeSink implements OutputSink {
+    private final OutputSink[] sinks;
+
+    public TeeSink(OutputSink... sinks) {
+        this.sinks = sinks;
+    }
+
+    @Override
+    public OutputStream openFile(String path) throws IOException {
+        OutputStream[] streams = new OutputStream[sinks.length];
+        try {
+            for (int i = 0; i < sinks.length; i++) {
+                streams[i] = sinks[i].openFile(path);
+            }
+        } catch (IOException | RuntimeException e) {
+            //don't leave the files that were opened unfinished
+            try {
+                closeAll(streams);
+            } catch (IOException closeException) {
+                e.addSuppressed(closeException);
+            }
+            throw e;
+        }
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                for (OutputStream stream : streams) {
+                    stream.write(b);
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                for (OutputStream stream : streams) {
+                    stream.write(b, off, len);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                for (OutputStream stream : streams) {
+                    stream.flush();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                closeAll(streams);
+            }
+        };
+    }
+
+    @Override
+    public void copyFile(String path, File source) throws IOException {
+        for (OutputSink sink : sinks) {
+            sink.copyFile(path, source);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeAll(sinks);
+    }
+
+    //closes every one, even when an earlier one throws; the first exception is rethrown with the others suppressed
+    private static void closeAll(Closeable[] closeables) throws IOException {
+        IOException exception = null;
+        for (Closeable closeable : closeables) {
+            if (closeable == null) {
+                continue;
+            }
+            try {
+                closeable.close();
+            } catch (IOException | RuntimeException e) {
+                if (exception == null) {
+                    exception = e instanceof IOException ? (IOException) e : new IOException(e);
+                } else {
+                    exception.addSuppressed(e);
+                }
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package general;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Line oriented scanner for the plain text instance formats. Numbers are parsed straight from a byte buffer, without
+ * creating a String per line or per token. Errors report the file, line and column of the offending input.
+ */
+public class TextScanner {
+    //doubles with a mantissa up to 2^53 and a power of ten up to 10^22 are exact, so one multiplication or
+    //division gives the correctly rounded result (the same as Double.parseDouble)
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final String fileName;
+    private final InputStream in;
+    private final byte[] buffer = new byte[1 << 16];
+    private int position = 0;
+    private int limit = 0;
+
+    //copy of the current number, only needed when it has to be handed to Double.parseDouble
+    private byte[] token = new byte[32];
+    private int tokenLength;
+
+    private int line = 1;
+    private int column = 1;
+
+    public TextScanner(File file) throws IOException {
+        this(file.getAbsolutePath(), new FileInputStream(file));
+    }
+
+    public TextScanner(String fileName, InputStream in) {
+        this.fileName = fileName;
+        this.in = in;
+    }
+
+    /**
+     * Skips the rest of the current line, including the line break.
+     *
+     * @return false if there was nothing left to skip
+     */
+    public boolean skipLine() throws IOException {
+        if (peek() < 0) {
+            return false;
+        }
+        int c;
+        while ((c = peek()) >= 0 && c != '\n' && c != '\r') {
+            advance();
+        }
+        skipLineBreak();
+        return true;
+    }
+
+    /**
+     * Requires that only spaces and tabs remain on the current line and moves to the start of the next line.
+     */
+    public void endLine() throws IOException {
+        skipSpaces();
+        int c = peek();
+        if (c >= 0 && c != '\n' && c != '\r') {
+            throw error("expected end of line but found '" + (char) c + "'");
+        }
+        skipLineBreak();
+    }
+
+    public int nextInt() throws IOException {
+        skipSpaces();
+        int startColumn = column;
+        boolean negative = false;
+        int c = peek();
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            advance();
+        }
+        long value = 0;
+        int digits = 0;
+        while ((c = peek()) >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw error(startColumn, "integer out of range");
+            }
+            digits++;
+            advance();
+        }
+        if (digits == 0 || isTokenCharacter(c)) {
+            throw error(startColumn, "expected an integer");
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw error(startColumn, "integer out of range");
+        }
+        return (int) value;
+    }
+
+    public double nextDouble() throws IOException {
+        skipSpaces();
+        int startColumn = column;
+        tokenLength = 0;
+        boolean negative = false;
+        int c = peek();
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            consume();
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean exact = true;
+        while ((c = peek()) >= '0' && c <= '9') {
+            if (mantissa != 0 || c != '0') {
+                if (significantDigits < 18) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    significantDigits++;
+                } else {
+                    //too many digits for the fast path
+                    exact = false;
+                }
+            }
+            digits++;
+            consume();
+        }
+        if (c == '.') {
+            consume();
+            while ((c = peek()) >= '0' && c <= '9') {
+                if (mantissa != 0 || c != '0') {
+                    if (significantDigits < 18) {
+                        mantissa = mantissa * 10 + (c - '0');
+                        significantDigits++;
+                    } else {
+                        exact = false;
+                    }
+                }
+                exponent--;
+                digits++;
+                consume();
+            }
+        }
+        if (digits == 0) {
+            throw error(startColumn, "expected a number");
+        }
+        if (c == 'e' || c == 'E') {
+            consume();
+            c = peek();
+            boolean negativeExponent = false;
+            if (c == '-' || c == '+') {
+                negativeExponent = c == '-';
+                consume();
+            }
+            int exponentDigits = 0;
+            int explicitExponent = 0;
+            while ((c = peek()) >= '0' && c <= '9') {
+                explicitExponent = Math.min(explicitExponent * 10 + (c - '0'), 100_000);
+                exponentDigits++;
+                consume();
+            }
+            if (exponentDigits == 0) {
+                throw error(startColumn, "malformed exponent");
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (isTokenCharacter(c)) {
+            throw error(startColumn, "expected a number");
+        }
+
+        double value;
+        if (exact && mantissa <= MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22) {
+            value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+            if (negative) {
+                value = -value;
+            }
+        } else {
+            value = Double.parseDouble(new String(token, 0, tokenLength, StandardCharsets.ISO_8859_1));
+        }
+        return value;
+    }
+
+    public void close() throws IOException {
+        in.close();
+    }
+
+    public IOException error(String message) {
+        return error(column, message);
+    }
+
+    private IOException error(int errorColumn, String message) {
+        return new IOException(fileName + ":" + line + ":" + errorColumn + ": " + message);
+    }
+
+    private void skipSpaces() throws IOException {
+        int c;
+        while ((c = peek()) == ' ' || c == '\t') {
+            advance();
+        }
+    }
+
+    private void skipLineBreak() throws IOException {
+        int c = peek();
+        if (c == '\r') {
+            advance();
+            c = peek();
+        }
+        if (c == '\n') {
+            advance();
+        }
+        line++;
+        column = 1;
+    }
+
+    private static boolean isTokenCharacter(int c) {
+        return c >= 0 && c != ' ' && c != '\t' && c != '\n' && c != '\r';
+    }
+
+    //the next byte without consuming it, -1 at the end of the input
+    private int peek() throws IOException {
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position] & 0xff;
+    }
+
+    private void advance() {
+        position++;
+        column++;
+    }
+
+    //advance while keeping the byte in the token
+    private void consume() {
+        if (tokenLength == token.length) {
+            byte[] larger = new byte[token.length * 2];
+            System.arraycopy(token, 0, larger, 0, tokenLength);
+            token = larger;
+        }
+        token[tokenLength++] = buffer[position];
+        advance();
+    }
+}
@@ -0,0 +1,101 @@
+package general;
+
+import json.Instance;
+import json.Item;
+import json.Ring;
+import json.Shape;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the throughput of PieceTextParser with the previous readLine/replaceAll/split implementation on a piece
+ * text file (e.g. swim.txt), checking that both give the same instance.
+ * <p>
+ * Usage: TextScannerBenchmarkMain pieceTextFile [repetitions] [parsesPerRepetition]
+ */
+public class TextScannerBenchmarkMain {
+    public static void main(String[] args) throws IOException {
+        File file = new File(args[0]);
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int parses = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+        Instance expected = previousParseInstance(file);
+        Instance actual = PieceTextParser.parseInstance(file, "benchmark", null, null);
+        System.out.println(actual.items.size() + " pieces, " + file.length() + " bytes, identical: "
+                + sameItems(expected, actual));
+
+        double megabytes = (double) file.length() * parses / (1024 * 1024);
+        for (int rep = 0; rep < repetitions; rep++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < parses; i++) {
+                previousParseInstance(file);
+            }
+            long previousTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < parses; i++) {
+                PieceTextParser.parseInstance(file, "benchmark", null, null);
+            }
+            long time = System.nanoTime() - start;
+
+            System.out.printf("split: %d ms (%.1f MB/s)\tscanner: %d ms (%.1f MB/s)%n",
+                    previousTime / 1_000_000, megabytes / (previousTime / 1e9),
+                    time / 1_000_000, megabytes / (time / 1e9));
+        }
+    }
+
+    static boolean sameItems(Instance instance1, Instance instance2) {
+        if (instance1.items.size() != instance2.items.size()) {
+            return false;
+        }
+        for (int i = 0; i < instance1.items.size(); i++) {
+            Item item1 = instance1.items.get(i);
+            Item item2 = instance2.items.get(i);
+            if (!item1.demand.equals(item2.demand) || !item1.shape.equals(item2.shape)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //The previous implementation of ShirtsParser and SwimParser
+    static Instance previousParseInstance(File file) throws IOException {
+        FileReader fr = new FileReader(file);
+        BufferedReader br = new BufferedReader(fr);
+
+        List<Item> items = new ArrayList<>();
+
+        while (true) {
+            if (br.readLine() == null) { //PIECE 1
+                break;
+            }
+            br.readLine(); //QUANTITY
+            int demand = Integer.parseInt(br.readLine());
+            br.readLine(); //NUMBER OF VERTICES
+            int numberOfVertices = Integer.parseInt(br.readLine());
+            br.readLine(); //VERTICES (X,Y)
+
+            Ring points = new Ring(numberOfVertices + 1);
+            for (int i = 0; i < numberOfVertices; i++) {
+                String coordinates = br.readLine().trim().replaceAll(" +", " ");
+                double x = Double.parseDouble(coordinates.split(" ")[0]);
+                double y = Double.parseDouble(coordinates.split(" ")[1]);
+                points.add(x, y);
+            }
+
+            Shape shape = new Shape(points);
+            Integer id = items.size();
+            Item item = new Item(id, demand, null, null, null, null, null, shape);
+            items.add(item);
+
+            br.readLine();
+        }
+        br.close();
+        return new Instance("benchmark", items, (Double) null);
+    }
+}
@@ -6,19 +6,28 @@ import json.Instance;
 import json.Point;
 
 import java.awt.*;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.file.Files;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 public class Util {
-    public static Gson gson = new GsonBuilder()
-            .registerTypeAdapter(json.Shape.class, new json.Shape.Serializer())
-            .registerTypeAdapter(json.Point.class, new Point.Serializer())
+    public static Gson gson = gsonBuilder()
             .setPrettyPrinting()
             .create();
+    //same layout without indentation and line breaks, for machine consumers
+    public static Gson compactGson = gsonBuilder()
+            .create();
+
+    private static GsonBuilder gsonBuilder() {
+        return new GsonBuilder()
+                .registerTypeAdapter(json.Shape.class, new json.Shape.Adapter().nullSafe())
+                .registerTypeAdapter(json.Ring.class, new json.Ring.Adapter().nullSafe())
+                .registerTypeAdapter(json.Point.class, new Point.Adapter().nullSafe());
+    }
 
     public static void zipFile(File fileToZip, String fileName, ZipOutputStream zipOut) throws IOException {
         if (fileToZip.isHidden()) {
@@ -38,15 +47,9 @@ public class Util {
             }
             return;
         }
-        FileInputStream fis = new FileInputStream(fileToZip);
         ZipEntry zipEntry = new ZipEntry(fileName);
         zipOut.putNextEntry(zipEntry);
-        byte[] bytes = new byte[1024];
-        int length;
-        while ((length = fis.read(bytes)) >= 0) {
-            zipOut.write(bytes, 0, length);
-        }
-        fis.close();
+        Files.copy(fileToZip.toPath(), zipOut);
     }
 
     public static Color qualityColorMapper(int quality) {
@@ -67,18 +70,60 @@ public class Util {
     }
 
     public static void writeInstance(Instance instance, File folder) throws IOException {
+        writeInstance(instance, folder, new OutputSettings());
+    }
+
+    public static void writeInstance(Instance instance, File folder, OutputSettings settings) throws IOException {
         try {
-            File instanceFile = new File(folder.getAbsolutePath() + "/" + instance.name + ".json");
-            File dxfDirectory = new File(folder.getAbsolutePath() + "/dxf");
-            dxfDirectory.mkdir();
-            instance.setShapePaths(dxfDirectory.getName());
-            instance.writeDXFs(folder);
-            FileWriter fw = new FileWriter(instanceFile);
-            fw.write(gson.toJson(instance));
-            fw.close();
+            writeInstance(instance, new FolderSink(folder), settings);
         } catch (Exception e) {
             System.err.println("Error writing instance: " + folder.getAbsolutePath());
             throw e;
         }
     }
+
+    /**
+     * Writes the instance the way the *Main classes publish it: the output folder and a zip archive with the same
+     * content next to it, named outputFolder.zip. Every file is generated once and streamed into both, the folder
+     * is skipped if settings.zipOnly is set.
+     *
+     * @return the zip archive
+     */
+    public static File writeConvertedInstance(Instance instance, File outputFolder, OutputSettings settings)
+            throws IOException {
+        File zipFile = new File(outputFolder.getAbsolutePath() + ".zip");
+        OutputSink zipSink = new ZipSink(zipFile, settings.zipLevel, settings.zipStored);
+        OutputSink sink = settings.zipOnly ? zipSink : new TeeSink(new FolderSink(outputFolder), zipSink);
+        try {
+            writeInstance(instance, sink, settings);
+        } catch (Exception e) {
+            System.err.println("Error writing instance: " + outputFolder.getAbsolutePath());
+            throw e;
+        } finally {
+            sink.close();
+        }
+        return zipFile;
+    }
+
+    public static File writeConvertedInstance(Instance instance, File outputFolder) throws IOException {
+        return writeConvertedInstance(instance, outputFolder, new OutputSettings());
+    }
+
+    /**
+     * Writes the instance json and its DXF files (in the dxf folder) to the sink, or with settings.combinedDxf the
+     * json and a single DXF file named after the instance.
+     */
+    public static void writeInstance(Instance instance, OutputSink sink, OutputSettings settings) throws IOException {
+        if (settings.combinedDxf) {
+            instance.setShapeBlocks(instance.name + ".dxf");
+            instance.writeCombinedDXF(sink, settings);
+        } else {
+            instance.setShapePaths("dxf");
+            instance.writeDXFs(sink, settings);
+        }
+        //stream the json to the sink instead of building it in memory first
+        BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(sink.openFile(instance.name + ".json")));
+        (settings.compactJson ? compactGson : gson).toJson(instance, bw);
+        bw.close();
+    }
 }
@@ -0,0 +1,95 @@
+package general;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes the files straight into the entries of a zip archive, with an entry for every parent folder.
+ */
+public class ZipSink implements OutputSink {
+    private final ZipOutputStream zipOS;
+    private final boolean stored;
+    private final Set<String> folders = new HashSet<>();
+
+    /**
+     * @param level  deflate compression level, 0-9 or -1 for the default
+     * @param stored store the entries uncompressed instead of deflating them
+     */
+    public ZipSink(File zipFile, int level, boolean stored) throws IOException {
+        this.zipOS = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(zipFile), 1 << 16));
+        this.zipOS.setLevel(level);
+        this.stored = stored;
+    }
+
+    @Override
+    public OutputStream openFile(String path) throws IOException {
+        addFolders(path);
+        ZipEntry entry = new ZipEntry(path);
+        if (stored) {
+            //stored entries need their size and crc up front
+            return new ByteArrayOutputStream() {
+                @Override
+                public void close() throws IOException {
+                    CRC32 crc = new CRC32();
+                    crc.update(buf, 0, count);
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(count);
+                    entry.setCompressedSize(count);
+                    entry.setCrc(crc.getValue());
+                    zipOS.putNextEntry(entry);
+                    zipOS.write(buf, 0, count);
+                    zipOS.closeEntry();
+                }
+            };
+        }
+        zipOS.putNextEntry(entry);
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                zipOS.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                zipOS.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                zipOS.closeEntry();
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        zipOS.close();
+    }
+
+    private void addFolders(String path) throws IOException {
+        int slash = path.indexOf('/');
+        while (slash >= 0) {
+            String folder = path.substring(0, slash + 1);
+            if (folders.add(folder)) {
+                ZipEntry entry = new ZipEntry(folder);
+                if (stored) {
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(0);
+                    entry.setCrc(0);
+                }
+                zipOS.putNextEntry(entry);
+                zipOS.closeEntry();
+            }
+            slash = path.indexOf('/', slash + 1);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.jsevy.jdxf.DXFDocument;
 import com.jsevy.jdxf.DXFGraphics;
 import general.Util;
 
+import java.awt.*;
 import java.util.List;
 
 public class Bin {
@@ -16,6 +17,9 @@ public class Bin {
     public Integer stock;
     @SerializedName("dxf")
     public String dxfPath;
+    //name of the bin's block in the instance DXF, instead of dxfPath (Instance.setShapeBlocks)
+    @SerializedName("dxf_block")
+    public String dxfBlock;
 
     @SerializedName("zones")
     public List<Zone> zones;
@@ -34,7 +38,18 @@ public class Bin {
 
     public DXFDocument generateDXF() {
         DXFDocument dxfDocument = new DXFDocument();
+        draw(dxfDocument);
+        return dxfDocument;
+    }
+
+    /**
+     * Draws the shape and the zones (each on its own layer) on the graphics of the document, starting from the
+     * default layer and color, so it can also be drawn into a block of a document with other bins.
+     */
+    public void draw(DXFDocument dxfDocument) {
         DXFGraphics dxfGraphics = dxfDocument.getGraphics();
+        dxfDocument.setLayer(null);
+        dxfGraphics.setColor(Color.BLACK);
 
         shape.draw(dxfGraphics);
 
@@ -47,8 +62,6 @@ public class Bin {
             zone.shape.draw(dxfGraphics);
             i++;
         }
-
-        return dxfDocument;
     }
 
 }
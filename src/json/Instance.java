@@ -2,15 +2,34 @@ package json;
 
 import com.google.gson.annotations.SerializedName;
 import com.jsevy.jdxf.DXFDocument;
+import general.DXFCache;
+import general.FolderSink;
+import general.OutputSettings;
+import general.OutputSink;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 public class Instance {
+    //rendered DXF files that may wait for the writer when generating concurrently
+    private static final int MAX_RENDERED_AHEAD = 256;
+
     @SerializedName("name")
     public String name;
+    //the single DXF with a block per item and bin (setShapeBlocks), null when every item and bin has its own file
+    @SerializedName("dxf")
+    public String dxfPath;
     @SerializedName("items")
     public List<Item> items;
     @SerializedName("bins")
@@ -34,37 +53,241 @@ public class Instance {
     }
 
     public void setShapePaths(String folderName) {
+        dxfPath = null;
         for (int i = 0; i < items.size(); i++) {
             Item item = items.get(i);
             item.dxfPath = folderName + "/i_" + i + ".dxf";
+            item.dxfBlock = null;
         }
         if (bins != null) {
             for (int i = 0; i < bins.size(); i++) {
                 Bin bin = bins.get(i);
                 bin.dxfPath = folderName + "/o_" + i + ".dxf";
+                bin.dxfBlock = null;
+            }
+        }
+    }
+
+    /**
+     * Alternative to setShapePaths for writeCombinedDXF: the items and bins get a block in the single DXF file
+     * dxfPath, named like their files would be (i_0, o_0...), instead of a file each.
+     */
+    public void setShapeBlocks(String dxfPath) {
+        this.dxfPath = dxfPath;
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            item.dxfPath = null;
+            item.dxfBlock = "i_" + i;
+        }
+        if (bins != null) {
+            for (int i = 0; i < bins.size(); i++) {
+                Bin bin = bins.get(i);
+                bin.dxfPath = null;
+                bin.dxfBlock = "o_" + i;
             }
         }
     }
 
     public void writeDXFs(File folder) throws IOException {
+        writeDXFs(folder, null);
+    }
+
+    /**
+     * @param cache reuses previously generated DXF files when not null
+     */
+    public void writeDXFs(File folder, DXFCache cache) throws IOException {
+        writeDXFs(new FolderSink(folder), cache, null);
+    }
+
+    /**
+     * Writes the DXF files to their dxfPath in the sink, items first and then bins.
+     * <p>
+     * With an executor the DXF files are generated and formatted concurrently on it, while the sink (and the cache)
+     * still receive them one by one in the serial order. Every DXF is generated from its own item or bin only, so the
+     * files are identical to the ones of the serial path.
+     *
+     * @param cache    reuses previously generated DXF files when not null
+     * @param executor generates the DXF files concurrently when not null
+     */
+    public void writeDXFs(OutputSink sink, DXFCache cache, ExecutorService executor) throws IOException {
+        OutputSettings settings = new OutputSettings();
+        settings.dxfCache = cache;
+        settings.dxfExecutor = executor;
+        writeDXFs(sink, settings);
+    }
+
+    /**
+     * Same as writeDXFs(sink, cache, executor) with the cache, the executor and the DXF format (binary or minimal) of
+     * the settings.
+     */
+    public void writeDXFs(OutputSink sink, OutputSettings settings) throws IOException {
+        DXFCache cache = settings.dxfCache;
+        ExecutorService executor = settings.dxfExecutor;
+        List<String> paths = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        List<Supplier<DXFDocument>> generators = new ArrayList<>();
+        for (Item item : items) {
+            paths.add(item.dxfPath);
+            keys.add(cache == null ? null : DXFCache.key(item, settings));
+            generators.add(item::generateDXF);
+        }
+        if (bins != null) {
+            for (Bin bin : bins) {
+                paths.add(bin.dxfPath);
+                keys.add(cache == null ? null : DXFCache.key(bin, settings));
+                generators.add(bin::generateDXF);
+            }
+        }
+
+        List<Future<byte[]>> rendered = new ArrayList<>();
+        try {
+            for (int i = 0; i < paths.size(); i++) {
+                //keep a bounded number of rendered files ahead of the writer
+                while (executor != null && rendered.size() < Math.min(paths.size(), i + MAX_RENDERED_AHEAD)) {
+                    Supplier<DXFDocument> generator = generators.get(rendered.size());
+                    boolean cached = cache != null && cache.contains(keys.get(rendered.size()));
+                    rendered.add(cached ? null : executor.submit(() -> render(generator.get(), settings)));
+                }
+
+                Future<byte[]> future = executor == null ? null : rendered.get(i);
+                Supplier<DXFDocument> generator = generators.get(i);
+                DXFCache.Content content;
+                if (future != null) {
+                    content = out -> out.write(getRendered(future));
+                } else {
+                    content = out -> writeDXF(generator.get(), out, settings);
+                }
+
+                if (cache != null) {
+                    cache.write(keys.get(i), content, sink, paths.get(i));
+                } else {
+                    OutputStream os = sink.openFile(paths.get(i));
+                    try {
+                        content.writeTo(os);
+                    } finally {
+                        os.close();
+                    }
+                }
+            }
+        } finally {
+            //only does something if writing failed half way
+            for (Future<byte[]> future : rendered) {
+                if (future != null) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a single DXF file to dxfPath in the sink, holding the drawing of every item and bin as a block named
+     * after its dxfBlock (see setShapeBlocks). With settings.dxfPreviews, the blocks are also inserted in the drawing, laid out
+     * on a grid in the order of the items and then the bins, so the file shows the whole instance when opened.
+     * The file is written in the DXF format of the settings; the minimal one has no blocks, and the DXF cache and
+     * executor don't apply to a single file.
+     */
+    public void writeCombinedDXF(OutputSink sink, OutputSettings settings) throws IOException {
+        DXFDocument dxf = new DXFDocument();
+        List<Shape> shapes = new ArrayList<>();
+        List<String> blocks = new ArrayList<>();
         for (Item item : items) {
-            DXFDocument dxf = item.generateDXF();
-            File file = new File(folder, item.dxfPath);
-            FileWriter fw = new FileWriter(file);
-            fw.write(dxf.toDXFString());
-            fw.close();
+            dxf.beginBlock(item.dxfBlock);
+            item.draw(dxf);
+            dxf.endBlock();
+            shapes.add(item.shape);
+            blocks.add(item.dxfBlock);
         }
+        int nItems = shapes.size();
         if (bins != null) {
             for (Bin bin : bins) {
-                DXFDocument dxf = bin.generateDXF();
-                File file = new File(folder, bin.dxfPath);
-                FileWriter fw = new FileWriter(file);
-                fw.write(dxf.toDXFString());
-                fw.close();
+                dxf.beginBlock(bin.dxfBlock);
+                bin.draw(dxf);
+                dxf.endBlock();
+                shapes.add(bin.shape);
+                blocks.add(bin.dxfBlock);
             }
         }
+
+        if (settings.dxfPreviews && !shapes.isEmpty()) {
+            //cells as large as the largest shape, with a margin of a tenth of it
+            double cellWidth = 0;
+            double cellHeight = 0;
+            for (Shape shape : shapes) {
+                double[] bounds = bounds(shape.outer_points);
+                cellWidth = Math.max(cellWidth, bounds[2] - bounds[0]);
+                cellHeight = Math.max(cellHeight, bounds[3] - bounds[1]);
+            }
+            double margin = Math.max(cellWidth, cellHeight) / 10;
+            cellWidth += margin;
+            cellHeight += margin;
+            //about square, the bins start on a row of their own
+            int columns = (int) Math.ceil(Math.sqrt(shapes.size()));
+            int itemRows = (nItems + columns - 1) / columns;
+
+            dxf.setLayer(null);
+            for (int i = 0; i < shapes.size(); i++) {
+                int cell = i < nItems ? i : itemRows * columns + (i - nItems);
+                double[] bounds = bounds(shapes.get(i).outer_points);
+                dxf.getGraphics().drawBlock(blocks.get(i), (cell % columns) * cellWidth - bounds[0],
+                        (cell / columns) * cellHeight - bounds[1]);
+            }
+        }
+
+        OutputStream os = sink.openFile(dxfPath);
+        try {
+            writeDXF(dxf, os, settings);
+        } finally {
+            os.close();
+        }
     }
 
+    //{minX, minY, maxX, maxY}
+    private static double[] bounds(Ring ring) {
+        double[] bounds = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.NEGATIVE_INFINITY};
+        for (int i = 0; i < ring.size(); i++) {
+            bounds[0] = Math.min(bounds[0], ring.x(i));
+            bounds[1] = Math.min(bounds[1], ring.y(i));
+            bounds[2] = Math.max(bounds[2], ring.x(i));
+            bounds[3] = Math.max(bounds[3], ring.y(i));
+        }
+        return bounds;
+    }
+
+    private static byte[] render(DXFDocument dxf, OutputSettings settings) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        writeDXF(dxf, bos, settings);
+        return bos.toByteArray();
+    }
+
+    private static byte[] getRendered(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while generating DXF");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private static void writeDXF(DXFDocument dxf, OutputStream out, OutputSettings settings) throws IOException {
+        //flush but don't close, the stream belongs to the caller
+        if (settings.binaryDxf) {
+            dxf.writeBinaryTo(out);
+            return;
+        }
+        dxf.generateAutoCADSections(!settings.minimalDxf);
+        BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out), 1 << 16);
+        dxf.writeTo(bw);
+        bw.flush();
+    }
 
     public String getName() {
         return name;
@@ -5,6 +5,7 @@ import com.jsevy.jdxf.DXFDocument;
 import com.jsevy.jdxf.DXFGraphics;
 import general.Util;
 
+import java.awt.*;
 import java.util.List;
 
 public class Item {
@@ -19,6 +20,9 @@ public class Item {
     public Integer value;
     @SerializedName("dxf")
     public String dxfPath;
+    //name of the item's block in the instance DXF, instead of dxfPath (Instance.setShapeBlocks)
+    @SerializedName("dxf_block")
+    public String dxfBlock;
 
     @SerializedName("min_quality")
     public Integer minQuality;
@@ -46,7 +50,18 @@ public class Item {
 
     public DXFDocument generateDXF() {
         DXFDocument dxfDocument = new DXFDocument();
+        draw(dxfDocument);
+        return dxfDocument;
+    }
+
+    /**
+     * Draws the shape and the zones (each on its own layer) on the graphics of the document, starting from the
+     * default layer and color, so it can also be drawn into a block of a document with other items.
+     */
+    public void draw(DXFDocument dxfDocument) {
         DXFGraphics dxfGraphics = dxfDocument.getGraphics();
+        dxfDocument.setLayer(null);
+        dxfGraphics.setColor(Color.BLACK);
 
         if (this.minQuality != null) {
             dxfGraphics.setColor(Util.qualityColorMapper(this.minQuality));
@@ -64,8 +79,6 @@ public class Item {
                 i++;
             }
         }
-
-        return dxfDocument;
     }
 
 
@@ -1,12 +1,11 @@
 package json;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.util.Objects;
 
 public class Point {
@@ -42,15 +41,25 @@ public class Point {
         return "(" + x + "," + y + ")";
     }
 
-    public static class Serializer implements JsonSerializer<Point> {
+    /**
+     * Writes a point as [x, y].
+     */
+    public static class Adapter extends TypeAdapter<Point> {
         @Override
-        public JsonElement serialize(Point point, Type type, JsonSerializationContext jsonSerializationContext) {
-
-            JsonArray jsonArray = new JsonArray();
-            jsonArray.add(point.x);
-            jsonArray.add(point.y);
+        public void write(JsonWriter out, Point point) throws IOException {
+            out.beginArray();
+            out.value(point.x);
+            out.value(point.y);
+            out.endArray();
+        }
 
-            return jsonArray;
+        @Override
+        public Point read(JsonReader in) throws IOException {
+            in.beginArray();
+            double x = in.nextDouble();
+            double y = in.nextDouble();
+            in.endArray();
+            return new Point(x, y);
         }
     }
 }
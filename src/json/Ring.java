@@ -0,0 +1,268 @@
+package json;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Packed sequence of vertices: the coordinates are stored in parallel x and y arrays instead of one Point object
+ * per vertex. The arrays can be handed directly to DXFGraphics.drawPolyline together with size().
+ */
+public class Ring {
+    private double[] xs;
+    private double[] ys;
+    private int size;
+
+    public Ring() {
+        this(16);
+    }
+
+    public Ring(int capacity) {
+        xs = new double[Math.max(capacity, 1)];
+        ys = new double[Math.max(capacity, 1)];
+    }
+
+    public static Ring of(List<Point> points) {
+        Ring ring = new Ring(points.size() + 1);
+        for (Point point : points) {
+            ring.add(point.x, point.y);
+        }
+        return ring;
+    }
+
+    public Ring copy() {
+        Ring copy = new Ring(size + 1);
+        System.arraycopy(xs, 0, copy.xs, 0, size);
+        System.arraycopy(ys, 0, copy.ys, 0, size);
+        copy.size = size;
+        return copy;
+    }
+
+    public void add(double x, double y) {
+        if (size == xs.length) {
+            xs = Arrays.copyOf(xs, size * 2);
+            ys = Arrays.copyOf(ys, size * 2);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double x(int i) {
+        return xs[i];
+    }
+
+    public double y(int i) {
+        return ys[i];
+    }
+
+    public Point get(int i) {
+        return new Point(xs[i], ys[i]);
+    }
+
+    /**
+     * The backing x coordinates, only the first size() entries are valid.
+     */
+    public double[] xs() {
+        return xs;
+    }
+
+    /**
+     * The backing y coordinates, only the first size() entries are valid.
+     */
+    public double[] ys() {
+        return ys;
+    }
+
+    public boolean isClosed() {
+        return size > 0 && samePoint(0, size - 1);
+    }
+
+    /**
+     * Appends the first vertex at the end if the ring isn't closed yet. An empty ring can't be closed, as there is no
+     * first vertex to repeat.
+     */
+    public void close() {
+        if (size == 0) {
+            throw new IllegalArgumentException("Can't close a ring without vertices");
+        }
+        if (!isClosed()) {
+            add(xs[0], ys[0]);
+        }
+    }
+
+    //same comparison as Point.equals
+    private boolean samePoint(int i, int j) {
+        return Double.compare(xs[i], xs[j]) == 0 && Double.compare(ys[i], ys[j]) == 0;
+    }
+
+    /**
+     * Read-only view of the vertices as Points, a new Point is created on every access.
+     */
+    public List<Point> asPoints() {
+        return new AbstractList<Point>() {
+            @Override
+            public Point get(int index) {
+                if (index >= size) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                return Ring.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    public ArrayList<Point> toPointList() {
+        return new ArrayList<>(asPoints());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Ring ring = (Ring) o;
+        if (size != ring.size) return false;
+        for (int i = 0; i < size; i++) {
+            if (Double.compare(xs[i], ring.xs[i]) != 0 || Double.compare(ys[i], ring.ys[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + Double.hashCode(xs[i]);
+            result = 31 * result + Double.hashCode(ys[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 64 bit hash of the exact coordinates, consistent with equals.
+     */
+    public long fingerprint() {
+        long h = 0xcbf29ce484222325L ^ size;
+        for (int i = 0; i < size; i++) {
+            h = (h ^ Double.doubleToLongBits(xs[i])) * 0x100000001b3L;
+            h = (h ^ Double.doubleToLongBits(ys[i])) * 0x100000001b3L;
+        }
+        //final avalanche so that the low bits depend on all coordinates
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    //orders rings by size, then lexicographically by (x, y)
+    static int compare(Ring ring1, Ring ring2) {
+        if (ring1.size != ring2.size) {
+            return Integer.compare(ring1.size, ring2.size);
+        }
+        for (int i = 0; i < ring1.size; i++) {
+            int c = Double.compare(ring1.xs[i], ring2.xs[i]);
+            if (c == 0) {
+                c = Double.compare(ring1.ys[i], ring2.ys[i]);
+            }
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The same closed ring, traversed from its smallest (x, y) vertex in the direction that gives the smallest
+     * sequence of vertices. Two closed rings describe the same polygon boundary if their canonical forms are equal.
+     */
+    Ring canonical() {
+        //vertices without the closing point
+        int n = isClosed() ? size - 1 : size;
+        int bestStart = -1;
+        int bestDirection = 0;
+        for (int start = 0; start < n; start++) {
+            for (int direction = 1; direction >= -1; direction -= 2) {
+                if (bestStart < 0 || compareFrom(start, direction, bestStart, bestDirection, n) < 0) {
+                    bestStart = start;
+                    bestDirection = direction;
+                }
+            }
+        }
+        Ring canonical = new Ring(n + 1);
+        for (int i = 0; i < n; i++) {
+            int j = Math.floorMod(bestStart + i * bestDirection, n);
+            canonical.add(xs[j], ys[j]);
+        }
+        canonical.close();
+        return canonical;
+    }
+
+    //compares the n vertex sequences starting at start1 and start2, walking in the given directions
+    private int compareFrom(int start1, int direction1, int start2, int direction2, int n) {
+        for (int i = 0; i < n; i++) {
+            int j1 = Math.floorMod(start1 + i * direction1, n);
+            int j2 = Math.floorMod(start2 + i * direction2, n);
+            int c = Double.compare(xs[j1], xs[j2]);
+            if (c == 0) {
+                c = Double.compare(ys[j1], ys[j2]);
+            }
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return asPoints().toString();
+    }
+
+    /**
+     * Writes a ring in the same layout as a list of Points: [[x, y], ...].
+     */
+    public static class Adapter extends TypeAdapter<Ring> {
+        @Override
+        public void write(JsonWriter out, Ring ring) throws IOException {
+            out.beginArray();
+            for (int i = 0; i < ring.size; i++) {
+                out.beginArray();
+                out.value(ring.xs[i]);
+                out.value(ring.ys[i]);
+                out.endArray();
+            }
+            out.endArray();
+        }
+
+        @Override
+        public Ring read(JsonReader in) throws IOException {
+            Ring ring = new Ring();
+            in.beginArray();
+            while (in.hasNext()) {
+                in.beginArray();
+                double x = in.nextDouble();
+                double y = in.nextDouble();
+                in.endArray();
+                ring.add(x, y);
+            }
+            in.endArray();
+            return ring;
+        }
+    }
+}
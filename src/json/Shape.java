@@ -1,92 +1,214 @@
 package json;
 
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.jsevy.jdxf.DXFGraphics;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
 public class Shape {
-    public ArrayList<Point> outer_points;
-    public ArrayList<ArrayList<Point>> inner_points;
+    public Ring outer_points;
+    public ArrayList<Ring> inner_points;
 
-    public Shape(ArrayList<Point> outer_points) {
+    //computed on first use, a shape must not be modified once it has been hashed or compared
+    private transient Long fingerprint;
+
+    public Shape(Ring outer_points) {
         this(outer_points, new ArrayList<>());
     }
 
-    public Shape(ArrayList<Point> outer_points, ArrayList<ArrayList<Point>> inner_points) {
+    public Shape(Ring outer_points, ArrayList<Ring> inner_points) {
         if (outer_points == null) {
             throw new NullPointerException("outer_points");
         }
 
-        if (!outer_points.get(outer_points.size() - 1).equals(outer_points.get(0))) {
-            outer_points.add(outer_points.get(0));
-        }
-
-        for (ArrayList<Point> inner : inner_points) {
-            if (!inner.get(inner.size() - 1).equals(inner.get(0))) {
-                inner.add(inner.get(0));
-            }
+        outer_points.close();
+        for (Ring inner : inner_points) {
+            inner.close();
         }
 
         this.outer_points = outer_points;
         this.inner_points = inner_points;
     }
 
+    public Shape(List<Point> outer_points) {
+        this(Ring.of(outer_points));
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Shape shape = (Shape) o;
+        if (fingerprint() != shape.fingerprint()) return false;
         return Objects.equals(outer_points, shape.outer_points) && Objects.equals(inner_points, shape.inner_points);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(outer_points, inner_points);
+        return Long.hashCode(fingerprint());
+    }
+
+    /**
+     * 64 bit hash of the exact coordinates of all rings, cached on the shape.
+     */
+    public long fingerprint() {
+        if (fingerprint == null) {
+            long h = outer_points.fingerprint();
+            for (Ring inner : inner_points) {
+                h = h * 31 + inner.fingerprint();
+            }
+            fingerprint = h;
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Canonical form of this shape up to translation and rotation by multiples of 90 degrees: congruent copies under
+     * these transformations have equal canonical forms. Every ring is also brought to a canonical starting vertex and
+     * direction, the holes are sorted.
+     */
+    public Shape canonical() {
+        Shape best = null;
+        for (int quarterTurns = 0; quarterTurns < 4; quarterTurns++) {
+            Ring outer = rotate(outer_points, quarterTurns);
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < outer.size(); i++) {
+                minX = Math.min(minX, outer.x(i));
+                minY = Math.min(minY, outer.y(i));
+            }
+            Ring canonicalOuter = translate(outer, -minX, -minY).canonical();
+            ArrayList<Ring> canonicalInner = new ArrayList<>();
+            for (Ring inner : inner_points) {
+                canonicalInner.add(translate(rotate(inner, quarterTurns), -minX, -minY).canonical());
+            }
+            canonicalInner.sort(Ring::compare);
+
+            Shape candidate = new Shape(canonicalOuter, canonicalInner);
+            if (best == null || compare(candidate, best) < 0) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private static Ring rotate(Ring ring, int quarterTurns) {
+        Ring rotated = new Ring(ring.size());
+        for (int i = 0; i < ring.size(); i++) {
+            double x = ring.x(i);
+            double y = ring.y(i);
+            for (int t = 0; t < quarterTurns; t++) {
+                double previousX = x;
+                x = -y;
+                y = previousX;
+            }
+            rotated.add(x, y);
+        }
+        return rotated;
+    }
+
+    private static Ring translate(Ring ring, double dx, double dy) {
+        Ring translated = new Ring(ring.size() + 1);
+        for (int i = 0; i < ring.size(); i++) {
+            //+ 0.0 turns -0.0 into 0.0
+            translated.add(ring.x(i) + dx + 0.0, ring.y(i) + dy + 0.0);
+        }
+        return translated;
+    }
+
+    private static int compare(Shape shape1, Shape shape2) {
+        int c = Ring.compare(shape1.outer_points, shape2.outer_points);
+        if (c == 0) {
+            c = Integer.compare(shape1.inner_points.size(), shape2.inner_points.size());
+        }
+        for (int i = 0; c == 0 && i < shape1.inner_points.size(); i++) {
+            c = Ring.compare(shape1.inner_points.get(i), shape2.inner_points.get(i));
+        }
+        return c;
     }
 
     public void draw(DXFGraphics dxfGraphics) {
-        dxfGraphics.drawPolyline(
-                outer_points.stream().mapToDouble(p -> p.x).toArray(),
-                outer_points.stream().mapToDouble(p -> p.y).toArray(),
-                outer_points.size());
-
-        for (List<Point> inner_points : inner_points) {
-            dxfGraphics.drawPolyline(
-                    inner_points.stream().mapToDouble(p -> p.x).toArray(),
-                    inner_points.stream().mapToDouble(p -> p.y).toArray(),
-                    inner_points.size());
+        dxfGraphics.drawPolyline(outer_points.xs(), outer_points.ys(), outer_points.size());
+
+        for (Ring inner : inner_points) {
+            dxfGraphics.drawPolyline(inner.xs(), inner.ys(), inner.size());
         }
     }
 
-    public static class Serializer implements JsonSerializer<Shape> {
+    /**
+     * Writes a shape without holes as {"type": "simple_polygon", "data": outer} and a shape with holes as
+     * {"type": "polygon", "data": {"outer": outer, "inner": [inner, ...]}}.
+     */
+    public static class Adapter extends TypeAdapter<Shape> {
+        private final Ring.Adapter ringAdapter = new Ring.Adapter();
 
         @Override
-        public JsonElement serialize(Shape shape, Type type, JsonSerializationContext jsonSerializationContext) {
-            JsonElement outerPoints = jsonSerializationContext.serialize(shape.outer_points);
-            JsonElement innerPoints = jsonSerializationContext.serialize(shape.inner_points);
-
-            JsonObject jsonObject = new JsonObject();
+        public void write(JsonWriter out, Shape shape) throws IOException {
+            out.beginObject();
             if (shape.inner_points.size() == 0) {
                 //simple polygon shape
-                jsonObject.addProperty("type", "simple_polygon");
-                jsonObject.add("data", outerPoints);
+                out.name("type").value("simple_polygon");
+                out.name("data");
+                ringAdapter.write(out, shape.outer_points);
             } else {
                 //polygon
-                jsonObject.addProperty("type", "polygon");
-                JsonObject data = new JsonObject();
-                data.add("outer", outerPoints);
-                data.add("inner", innerPoints);
+                out.name("type").value("polygon");
+                out.name("data").beginObject();
+                out.name("outer");
+                ringAdapter.write(out, shape.outer_points);
+                out.name("inner").beginArray();
+                for (Ring inner : shape.inner_points) {
+                    ringAdapter.write(out, inner);
+                }
+                out.endArray();
+                out.endObject();
+            }
+            out.endObject();
+        }
 
-                jsonObject.add("data", data);
+        @Override
+        public Shape read(JsonReader in) throws IOException {
+            String type = null;
+            Ring outer = null;
+            ArrayList<Ring> inner = new ArrayList<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (name.equals("type")) {
+                    type = in.nextString();
+                } else if (name.equals("data") && "simple_polygon".equals(type)) {
+                    outer = ringAdapter.read(in);
+                } else if (name.equals("data") && "polygon".equals(type)) {
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        String dataName = in.nextName();
+                        if (dataName.equals("outer")) {
+                            outer = ringAdapter.read(in);
+                        } else if (dataName.equals("inner")) {
+                            in.beginArray();
+                            while (in.hasNext()) {
+                                inner.add(ringAdapter.read(in));
+                            }
+                            in.endArray();
+                        } else {
+                            in.skipValue();
+                        }
+                    }
+                    in.endObject();
+                } else if (name.equals("data")) {
+                    throw new JsonParseException("Unsupported shape type: " + type);
+                } else {
+                    in.skipValue();
+                }
             }
-            return jsonObject;
+            in.endObject();
+            return new Shape(outer, inner);
         }
     }
 